@@ -0,0 +1,120 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Differences between two loads of the catalog, by course code.
+ * Used by CatalogWatcher to patch only the changed nodes and edges.
+ */
+public class CatalogDiff {
+    public final List<String> added = new ArrayList<>();
+    public final List<String> removed = new ArrayList<>();
+    public final List<String> prerequisitesChanged = new ArrayList<>();  // same code, other prerequisite groups
+    public final List<String> renamed = new ArrayList<>();               // same code, other name
+    public final List<String> dataChanged = new ArrayList<>();           // anything else (seasons, ratings, sections...)
+
+    /**
+     * Compares every course of the two catalogs.
+     */
+    public static CatalogDiff between(CourseCatalog oldCatalog, CourseCatalog newCatalog) {
+        CatalogDiff diff = new CatalogDiff();
+        Map<String, CourseData> oldCourses = oldCatalog.getAllCourses();
+        Map<String, CourseData> newCourses = newCatalog.getAllCourses();
+
+        for (CourseData cd : newCourses.values()) {
+            CourseData old = oldCourses.get(cd.courseCode);
+            if (old == null) {
+                diff.added.add(cd.courseCode);
+                continue;
+            }
+            if (!old.prerequisiteExpr.getGroups().equals(cd.prerequisiteExpr.getGroups())) {
+                diff.prerequisitesChanged.add(cd.courseCode);
+            }
+            if (!Objects.equals(old.courseName, cd.courseName)) diff.renamed.add(cd.courseCode);
+            if (!sameData(old, cd)) diff.dataChanged.add(cd.courseCode);
+        }
+        for (String code : oldCourses.keySet()) {
+            if (!newCourses.containsKey(code)) diff.removed.add(code);
+        }
+
+        Collections.sort(diff.added);
+        Collections.sort(diff.removed);
+        Collections.sort(diff.prerequisitesChanged);
+        Collections.sort(diff.renamed);
+        Collections.sort(diff.dataChanged);
+        return diff;
+    }
+
+    private static boolean sameData(CourseData a, CourseData b) {
+        if (a.offeredFall != b.offeredFall || a.offeredSpring != b.offeredSpring) return false;
+        if (a.ratingFall != b.ratingFall || a.ratingSpring != b.ratingSpring) return false;
+        if (a.division != b.division || a.isWritingIntensive != b.isWritingIntensive || a.isDPE != b.isDPE) return false;
+        if (!a.extraSeasons.equals(b.extraSeasons)) return false;
+        if (a.sections.size() != b.sections.size()) return false;
+        for (int i = 0; i < a.sections.size(); i++) {
+            Section x = a.sections.get(i), y = b.sections.get(i);
+            if (!x.sectionId.equals(y.sectionId) || !Objects.equals(x.days, y.days)
+                    || !Objects.equals(x.startTime, y.startTime) || !Objects.equals(x.endTime, y.endTime)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes every field compared here, course by course in code order, so two
+     * catalogs without differences get the same value, whatever the row order
+     * or the formatting of the file and across restarts.
+     *
+     * @return Non-negative CRC32 of the catalog contents.
+     */
+    public static int fingerprint(CourseCatalog catalog) {
+        CRC32 crc = new CRC32();
+        StringBuilder sb = new StringBuilder();
+        for (CourseData cd : new TreeMap<>(catalog.getAllCourses()).values()) {
+            sb.setLength(0);
+            sb.append(cd.courseCode).append('|').append(cd.courseName)
+              .append('|').append(cd.prerequisiteExpr.getGroups())
+              .append('|').append(cd.offeredFall).append('|').append(cd.offeredSpring)
+              .append('|').append(cd.ratingFall).append('|').append(cd.ratingSpring)
+              .append('|').append(cd.division).append('|').append(cd.isWritingIntensive)
+              .append('|').append(cd.isDPE).append('|').append(cd.extraSeasons);
+            for (Section section : cd.sections) {
+                sb.append('|').append(section.sectionId).append(' ').append(section.days)
+                  .append(' ').append(section.startTime).append(' ').append(section.endTime);
+            }
+            sb.append('\n');
+            crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return (int) (crc.getValue() & 0x7fffffff);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && prerequisitesChanged.isEmpty()
+            && renamed.isEmpty() && dataChanged.isEmpty();
+    }
+
+    /**
+     * @return Whether the prerequisite graph needs to change.
+     */
+    public boolean changesGraph() {
+        return !added.isEmpty() || !removed.isEmpty() || !prerequisitesChanged.isEmpty();
+    }
+
+    /**
+     * @return Codes whose search tokens changed (added, removed or renamed).
+     */
+    public List<String> searchChanges() {
+        List<String> result = new ArrayList<>(added);
+        result.addAll(removed);
+        result.addAll(renamed);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + removed.size() + " removed, "
+            + prerequisitesChanged.size() + " with new prerequisites, "
+            + renamed.size() + " renamed, " + dataChanged.size() + " with other changes";
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.*;
+
+/**
+ * Load-time consistency checks for a catalog:
+ *  - prerequisite cycles (iterative Tarjan SCC, see SccFinder),
+ *  - prerequisites that refer to courses missing from the catalog,
+ *  - courses never offered,
+ *  - courses whose prerequisites can never be completed.
+ *
+ * Everything runs in O(courses + prerequisite references) over int arrays,
+ * so it also works for catalogs with millions of edges.
+ */
+public final class CatalogValidator {
+
+    private CatalogValidator() {
+    }
+
+    public static ValidationReport validate(CourseCatalog catalog) {
+        ValidationReport report = new ValidationReport();
+        int n = catalog.size();
+
+        // Pass 1: count edges (prereq → course) and groups
+        int[] offsets = new int[n + 1];
+        int groupCount = 0;
+        for (int c = 0; c < n; c++) {
+            CourseData cd = catalog.getCourseAt(c);
+            Set<String> reported = new HashSet<>();
+            for (List<String> group : cd.prerequisiteExpr.getGroups()) {
+                groupCount++;
+                for (String code : group) {
+                    int p = catalog.indexOf(code);
+                    if (p >= 0) {
+                        offsets[p + 1]++;
+                    } else if (reported.add(code)) {
+                        report.addMissingPrerequisite(cd.courseCode, code);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+
+        // Pass 2: fill edge targets and the group each edge belongs to
+        int[] targets = new int[offsets[n]];
+        int[] edgeGroup = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] groupsLeft = new int[n];
+        int gid = 0;
+        for (int c = 0; c < n; c++) {
+            List<List<String>> groups = catalog.getCourseAt(c).prerequisiteExpr.getGroups();
+            groupsLeft[c] = groups.size();
+            for (List<String> group : groups) {
+                for (String code : group) {
+                    int p = catalog.indexOf(code);
+                    if (p < 0) continue;
+                    targets[fill[p]] = c;
+                    edgeGroup[fill[p]] = gid;
+                    fill[p]++;
+                }
+                gid++;
+            }
+        }
+
+        // Cycles
+        for (int[] component : SccFinder.cyclicComponents(n, offsets, targets)) {
+            report.addCycle(codes(catalog, component), codes(catalog, SccFinder.cycleIn(component, offsets, targets)));
+        }
+
+        // Never offered courses
+        boolean[] offered = new boolean[n];
+        for (int c = 0; c < n; c++) {
+            offered[c] = isOffered(catalog.getCourseAt(c));
+            if (!offered[c]) report.addNeverOffered(catalog.codeAt(c));
+        }
+
+        // Reachability: a course can be taken once it is offered and every
+        // group has one course that can be taken (worklist, like Kahn's algorithm)
+        boolean[] groupDone = new boolean[groupCount];
+        boolean[] takeable = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int c = 0; c < n; c++) {
+            if (offered[c] && groupsLeft[c] == 0) {
+                takeable[c] = true;
+                queue[tail++] = c;
+            }
+        }
+        while (head < tail) {
+            int p = queue[head++];
+            for (int e = offsets[p]; e < offsets[p + 1]; e++) {
+                int g = edgeGroup[e];
+                if (groupDone[g]) continue;
+                groupDone[g] = true;
+                int c = targets[e];
+                if (--groupsLeft[c] == 0 && offered[c] && !takeable[c]) {
+                    takeable[c] = true;
+                    queue[tail++] = c;
+                }
+            }
+        }
+        for (int c = 0; c < n; c++) {
+            if (offered[c] && !takeable[c]) report.addUnreachable(catalog.codeAt(c));
+        }
+
+        return report;
+    }
+
+    private static boolean isOffered(CourseData cd) {
+        return cd.isOfferedAtAll() && !cd.sections.isEmpty();
+    }
+
+    private static List<String> codes(CourseCatalog catalog, int[] ids) {
+        List<String> result = new ArrayList<>(ids.length);
+        for (int id : ids) result.add(catalog.codeAt(id));
+        return result;
+    }
+}
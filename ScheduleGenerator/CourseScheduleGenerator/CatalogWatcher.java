@@ -0,0 +1,226 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Watches the catalog CSV and reloads it when it changes, without a restart.
+ *
+ * The current catalog, prerequisite graph and search index form an immutable
+ * Snapshot. A reload parses the file into a new catalog, diffs it against the
+ * current one and patches a copy of the graph with only the changed nodes and
+ * edges (one DAG batch, so a change that creates a cycle is rejected as a
+ * whole) and the search index with only the changed courses. The graph copy
+ * shares the edge sets of every course the batch does not touch. The new snapshot
+ * is then swapped in atomically: a planning request that already took the old
+ * snapshot keeps using it until it finishes.
+ *
+ * The version of a snapshot is the fingerprint of its catalog contents
+ * (CatalogDiff.fingerprint), not a counter, so plans saved in a PlanStore keep
+ * pointing at the catalog they were made with after a restart.
+ */
+public class CatalogWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = 200;   // editors write a file in several steps
+
+    /**
+     * One version of the catalog with its graph and search index. Never modified after
+     * it is published; take it once per request and use it for the whole request.
+     */
+    public static class Snapshot {
+        public final int version;   // CatalogDiff.fingerprint of the catalog
+        public final CourseCatalog catalog;
+        public final DAG graph;
+        public final CourseSearchIndex searchIndex;
+        private final Map<TermCalendar, FourYearPlanner> fourYearPlanners = new ConcurrentHashMap<>();
+
+        Snapshot(int version, CourseCatalog catalog, DAG graph, CourseSearchIndex searchIndex) {
+            this.version = version;
+            this.catalog = catalog;
+            this.graph = graph;
+            this.searchIndex = searchIndex;
+        }
+
+        /**
+         * @return A planner over this snapshot that reuses its graph.
+         */
+        public CoursePlanner planner(int maxCoursesPerSem, TermCalendar calendar) {
+            return new CoursePlanner(catalog, graph, maxCoursesPerSem, calendar);
+        }
+
+        /**
+         * @return The four-year planner of this snapshot for the calendar, built once,
+         *         so its feasibility checker is shared by every request on this version.
+         */
+        public FourYearPlanner fourYearPlanner(TermCalendar calendar) {
+            return fourYearPlanners.computeIfAbsent(calendar, c -> new FourYearPlanner(catalog, c));
+        }
+    }
+
+    private final Path file;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Loads the catalog once. Call start() to watch it afterwards.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public CatalogWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        CourseCatalog catalog = load();
+        current.set(new Snapshot(CatalogDiff.fingerprint(catalog), catalog, CoursePlanner.buildGraph(catalog),
+            new CourseSearchIndex(catalog)));
+    }
+
+    public Snapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Registers a callback run, on the watcher thread, after every new snapshot is swapped in.
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts watching the directory of the file on a daemon thread.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (!changed) continue;
+
+                // Let the writer finish, then drop the events of the same write
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey more;
+                while ((more = watchService.poll()) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+
+                try {
+                    reload();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Catalog reload failed, keeping version "
+                        + current.get().version + ": " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Reloads the file now and swaps in a new snapshot if anything changed.
+     *
+     * @return true if a new snapshot was published.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalStateException if the new prerequisites contain a cycle; the current snapshot is kept.
+     */
+    public synchronized boolean reload() throws IOException {
+        Snapshot old = current.get();
+        CourseCatalog catalog = load();
+        CatalogDiff diff = CatalogDiff.between(old.catalog, catalog);
+        if (diff.isEmpty()) return false;
+
+        // The old graph may be in use, so the changes go to a copy
+        DAG graph = old.graph;
+        if (diff.changesGraph()) {
+            graph = old.graph.copy();
+            applyToGraph(graph, diff, old.catalog, catalog);
+        }
+        CourseSearchIndex searchIndex = old.searchIndex.withChanges(catalog, diff.searchChanges());
+
+        Snapshot next = new Snapshot(CatalogDiff.fingerprint(catalog), catalog, graph, searchIndex);
+        current.set(next);
+        System.err.println("Catalog reloaded (version " + next.version + "): " + diff);
+        for (Consumer<Snapshot> listener : listeners) listener.accept(next);
+        return true;
+    }
+
+    private CourseCatalog load() throws IOException {
+        CourseCatalog catalog = new CourseCatalog();
+        catalog.loadFromCSV(file.toString());
+        return catalog;
+    }
+
+    /**
+     * Patches the graph so it matches CoursePlanner.buildGraph(newCatalog):
+     * the nodes are the catalog courses plus every course they mention.
+     */
+    private static void applyToGraph(DAG graph, CatalogDiff diff, CourseCatalog oldCatalog, CourseCatalog newCatalog) {
+        // Courses still mentioned as prerequisites keep their node
+        Set<String> mentioned = new HashSet<>();
+        for (CourseData cd : newCatalog.getAllCourses().values()) mentioned.addAll(cd.prerequisites);
+
+        DAG.Batch batch = graph.beginBatch();
+        Set<String> oldPrereqs = new LinkedHashSet<>();
+
+        for (String code : diff.removed) {
+            List<String> prereqs = oldCatalog.getCourse(code).prerequisites;
+            oldPrereqs.addAll(prereqs);
+            if (mentioned.contains(code)) {
+                for (String p : prereqs) batch.removePrerequisite(code, p);
+            } else {
+                batch.removeCourse(code);
+            }
+        }
+        for (String code : diff.prerequisitesChanged) {
+            List<String> prereqs = oldCatalog.getCourse(code).prerequisites;
+            oldPrereqs.addAll(prereqs);
+            for (String p : prereqs) batch.removePrerequisite(code, p);
+        }
+        for (String code : diff.prerequisitesChanged) {
+            for (List<String> group : newCatalog.getCourse(code).prerequisiteExpr.getGroups()) {
+                batch.addPrerequisiteGroup(code, group);
+            }
+        }
+        for (String code : diff.added) {
+            batch.addCourse(code);
+            for (List<String> group : newCatalog.getCourse(code).prerequisiteExpr.getGroups()) {
+                batch.addPrerequisiteGroup(code, group);
+            }
+        }
+
+        // Prerequisite-only nodes nobody mentions any more
+        for (String p : oldPrereqs) {
+            if (newCatalog.getCourse(p) == null && !mentioned.contains(p)) batch.removeCourse(p);
+        }
+
+        batch.commit();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread != null) thread.interrupt();
+        if (watchService != null) watchService.close();
+        thread = null;
+        watchService = null;
+    }
+}
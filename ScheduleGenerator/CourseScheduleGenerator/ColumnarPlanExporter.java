@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Writes plans in a compact columnar binary format, read with PlanColumnReader.
+ *
+ * Rows are buffered into row groups of up to 64K rows; each full group is
+ * written as [payload length][CRC32][payload] with the payload laid out
+ * column by column:
+ *
+ *   rows               int
+ *   new course codes   count (int), then each code (2-byte length + UTF-8)
+ *   plans              count (int), then per plan: student ID (2-byte length + UTF-8),
+ *                      catalog version (int), number of rows (int)
+ *   term column        1 byte per row, term index within the plan's calendar
+ *   course column      2 bytes per row, id in the course code dictionary
+ *
+ * Course codes get their dictionary id the first time they appear, and the
+ * dictionary grows across the file, so a reader has to scan the groups in
+ * order. Student IDs are stored once per plan instead of once per row.
+ * A plan whose rows do not fit the current group continues in the next one,
+ * and a plan without courses is kept as a plan with 0 rows.
+ */
+public class ColumnarPlanExporter extends PlanExporter {
+    static final int MAGIC = 0x504C4E43;   // "PLNC"
+    static final int FORMAT = 1;
+    static final int HEADER_SIZE = 8;
+    static final int GROUP_HEADER_SIZE = 8;
+    static final int ROW_GROUP_ROWS = 1 << 16;
+
+    private final Map<String, Integer> codeIds = new HashMap<>();
+    private final List<String> newCodes = new ArrayList<>();   // codes first seen in the current group
+
+    // Current row group
+    private final byte[] terms = new byte[ROW_GROUP_ROWS];
+    private final char[] courses = new char[ROW_GROUP_ROWS];
+    private int rows;
+    private final List<String> planStudents = new ArrayList<>();
+    private int[] planVersions = new int[64];
+    private int[] planRows = new int[64];
+
+    private String studentId;        // plan being written
+    private int catalogVersion;
+    private ByteBuffer group = ByteBuffer.allocate(1 << 16);
+
+    public ColumnarPlanExporter(Path file) throws IOException {
+        super(file);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT);
+        header.flip();
+        output(header);
+    }
+
+    @Override
+    protected void startPlan(String studentId, int catalogVersion, TermCalendar calendar) throws IOException {
+        this.studentId = studentId;
+        this.catalogVersion = catalogVersion;
+        if (rows == ROW_GROUP_ROWS || planStudents.size() == ROW_GROUP_ROWS) flushGroup();
+        addPlanToGroup();
+    }
+
+    @Override
+    protected void addRow(TermCalendar calendar, int term, String code) throws IOException {
+        if (term > 255) throw new IllegalArgumentException("Too many terms in " + calendar);
+        if (rows == ROW_GROUP_ROWS) {
+            flushGroup();
+            addPlanToGroup();
+        }
+        terms[rows] = (byte) term;
+        courses[rows] = (char) codeId(code);
+        rows++;
+        planRows[planStudents.size() - 1]++;
+    }
+
+    private void addPlanToGroup() {
+        int p = planStudents.size();
+        if (p == planVersions.length) {
+            planVersions = Arrays.copyOf(planVersions, p * 2);
+            planRows = Arrays.copyOf(planRows, p * 2);
+        }
+        planStudents.add(studentId);
+        planVersions[p] = catalogVersion;
+        planRows[p] = 0;
+    }
+
+    private int codeId(String code) {
+        Integer id = codeIds.get(code);
+        if (id != null) return id;
+        if (codeIds.size() > Character.MAX_VALUE) throw new IllegalStateException("Too many course codes");
+        int newId = codeIds.size();
+        codeIds.put(code, newId);
+        newCodes.add(code);
+        return newId;
+    }
+
+    private void flushGroup() throws IOException {
+        if (planStudents.isEmpty()) return;
+
+        List<byte[]> codeBytes = new ArrayList<>(newCodes.size());
+        List<byte[]> studentBytes = new ArrayList<>(planStudents.size());
+        int size = 4 + 4 + 4 + 3 * rows;
+        for (String code : newCodes) {
+            byte[] bytes = utf8(code);
+            codeBytes.add(bytes);
+            size += 2 + bytes.length;
+        }
+        for (String student : planStudents) {
+            byte[] bytes = utf8(student);
+            studentBytes.add(bytes);
+            size += 2 + bytes.length + 4 + 4;
+        }
+
+        if (group.capacity() < GROUP_HEADER_SIZE + size) group = ByteBuffer.allocate(GROUP_HEADER_SIZE + size);
+        group.clear();
+        group.position(GROUP_HEADER_SIZE);
+        group.putInt(rows);
+        group.putInt(codeBytes.size());
+        for (byte[] bytes : codeBytes) putString(group, bytes);
+        group.putInt(studentBytes.size());
+        for (int p = 0; p < studentBytes.size(); p++) {
+            putString(group, studentBytes.get(p));
+            group.putInt(planVersions[p]);
+            group.putInt(planRows[p]);
+        }
+        group.put(terms, 0, rows);
+        group.asCharBuffer().put(courses, 0, rows);
+        group.position(group.position() + 2 * rows);
+
+        CRC32 crc = new CRC32();
+        crc.update(group.array(), GROUP_HEADER_SIZE, size);
+        group.putInt(0, size);
+        group.putInt(4, (int) crc.getValue());
+        group.flip();
+        output(group);
+
+        newCodes.clear();
+        planStudents.clear();
+        rows = 0;
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        flushGroup();
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Character.MAX_VALUE) throw new IllegalArgumentException("String too long: " + s);
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putChar((char) bytes.length);
+        buffer.put(bytes);
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Small helpers for course bitsets stored as long[] and indexed by catalog index.
+ * Used wherever a set of courses is checked over and over (completed courses,
+ * required/elective masks...), since a bit test is much cheaper than a HashSet lookup.
+ */
+public final class CourseBits {
+
+    private CourseBits() {
+    }
+
+    /**
+     * @param courseCount Number of courses in the catalog.
+     * @return An empty bitset able to hold every course.
+     */
+    public static long[] create(int courseCount) {
+        return new long[(courseCount + 63) >>> 6];
+    }
+
+    public static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    public static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    public static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static int count(long[] bits) {
+        int n = 0;
+        for (long word : bits) n += Long.bitCount(word);
+        return n;
+    }
+}
@@ -5,12 +5,28 @@ import java.util.*;
 public class CourseCatalog {
     private Map<String, CourseData> catalog = new HashMap<>();
 
+    // Dense index of every course, used for bitsets and compiled prerequisites.
+    private List<String> codes = new ArrayList<>();
+    private Map<String, Integer> indexByCode = new HashMap<>();
+
+    // Courses that mention each course as a prerequisite, CSR by prerequisite index; built on first use
+    private int[] dependentOffsets;
+    private int[] dependents;
+
+    // Problems found by the last load (cycles, missing prerequisites...)
+    private ValidationReport validationReport = new ValidationReport();
+
     public void loadFromCSV(String filename) throws IOException {
+        // Rows skipped or only partly used, added to the validation report below
+        List<String> rowProblems = new ArrayList<>();
+
         try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
             String header = br.readLine(); // skip header
             String line;
+            int lineNo = 1;
 
             while ((line = br.readLine()) != null) {
+                lineNo++;
                 List<String> cols = parseCSVLine(line);
 
                 if (cols.size() < 14) {
@@ -20,9 +36,13 @@ public class CourseCatalog {
 
                 String code = cols.get(0).trim();
                 String name = cols.get(1).trim();
-                List<String> prereqs = cols.get(2).isEmpty()
-                    ? new ArrayList<>()
-                    : Arrays.asList(cols.get(2).split(";"));
+                PrerequisiteExpr prereqs;
+                try {
+                    prereqs = PrerequisiteExpr.parse(code, cols.get(2));
+                } catch (IllegalArgumentException e) {
+                    rowProblems.add("Line " + lineNo + " skipped: " + e.getMessage());
+                    continue;
+                }
 
                 int level = Integer.parseInt(cols.get(3));
                 int division = Integer.parseInt(cols.get(4));
@@ -35,18 +55,135 @@ public class CourseCatalog {
                 String days = cols.get(11);
                 String startTime = cols.get(12);
                 String endTime = cols.get(13);
+                Set<Season> seasons = EnumSet.noneOf(Season.class);
+                // Optional extra seasons, e.g. "Winter;Summer"
+                if (cols.size() > 15) {
+                    for (String label : cols.get(15).split("[;/ ]+")) {
+                        Season season = Season.fromLabel(label);
+                        if (season == Season.WINTER || season == Season.SUMMER) seasons.add(season);
+                    }
+                }
+
+                try {
+                    // A repeated course code is another section of the same course
+                    CourseData existing = catalog.get(code);
+                    if (existing != null) {
+                        String sectionId = cols.size() > 14 && !cols.get(14).isEmpty()
+                            ? cols.get(14)
+                            : String.format("%02d", existing.sections.size() + 1);
+                        existing.sections.add(new Section(code, sectionId, days, startTime, endTime));
+
+                        // Only the meeting time of a repeated row is used; say so if the rest differs
+                        List<String> differences = new ArrayList<>();
+                        if (!existing.courseName.equals(name)) differences.add("name");
+                        if (!existing.prerequisiteExpr.getGroups().equals(prereqs.getGroups())) differences.add("prerequisites");
+                        if (existing.division != division) differences.add("division");
+                        if (existing.isWritingIntensive != wi || existing.isDPE != dpe) differences.add("W/DPE");
+                        if (existing.ratingFall != rf || existing.ratingSpring != rs) differences.add("ratings");
+                        if (existing.offeredFall != fall || existing.offeredSpring != spring
+                                || !existing.extraSeasons.equals(seasons)) {
+                            differences.add("seasons");
+                        }
+                        if (!differences.isEmpty()) {
+                            rowProblems.add("Line " + lineNo + ": section " + sectionId + " of " + code
+                                + " differs from the first row in " + String.join(", ", differences)
+                                + "; only its meeting time is used");
+                        }
+                        continue;
+                    }
+
+                    CourseData cd = new CourseData(
+                        code, name, prereqs,
+                        fall, spring, rf, rs,
+                        division, wi, dpe,
+                        days, startTime, endTime
+                    );
+                    if (cols.size() > 14 && !cols.get(14).isEmpty()) {
+                        cd.sections.set(0, new Section(code, cols.get(14), days, startTime, endTime));
+                    }
+                    cd.extraSeasons.addAll(seasons);
+
+                    catalog.put(code, cd);
+                } catch (IllegalArgumentException e) {
+                    rowProblems.add("Line " + lineNo + " skipped: " + code + " has an " + e.getMessage());
+                }
+            }
+        }
 
-                CourseData cd = new CourseData(
-                    code, name, prereqs,
-                    fall, spring, rf, rs,
-                    division, wi, dpe,
-                    days, startTime, endTime
-                );
+        rebuildIndex();
 
-                catalog.put(code, cd);
+        validationReport = CatalogValidator.validate(this);
+        for (String problem : rowProblems) validationReport.addRowProblem(problem);
+        if (!validationReport.isValid()) {
+            System.err.println("Catalog problems: " + validationReport);
+            List<String> lines = validationReport.describe();
+            for (int i = 0; i < Math.min(lines.size(), 20); i++) {
+                System.err.println("  " + lines.get(i));
             }
+            if (lines.size() > 20) System.err.println("  ... " + (lines.size() - 20) + " more");
+        }
+    }
+
+    /**
+     * Gives every course a dense index and compiles its prerequisite expression
+     * against those indexes.
+     */
+    private void rebuildIndex() {
+        codes = new ArrayList<>(catalog.keySet());
+        Collections.sort(codes);
+        indexByCode = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            indexByCode.put(codes.get(i), i);
+            catalog.get(codes.get(i)).index = i;
         }
+        for (CourseData cd : catalog.values()) {
+            cd.prerequisiteExpr.compile(indexByCode);
+        }
+        dependentOffsets = null;
+        dependents = null;
+    }
+
+    /**
+     * @return CSR offsets of dependentsArray(): the dependents of course p are
+     *         dependentsArray()[offsets[p] .. offsets[p + 1]).
+     */
+    synchronized int[] dependentOffsets() {
+        if (dependentOffsets == null) buildDependents();
+        return dependentOffsets;
+    }
 
+    /**
+     * @return Catalog indexes of the courses that have each course in one of their groups.
+     */
+    synchronized int[] dependentsArray() {
+        if (dependents == null) buildDependents();
+        return dependents;
+    }
+
+    private void buildDependents() {
+        int n = codes.size();
+        int[] offsets = new int[n + 1];
+        for (int c = 0; c < n; c++) {
+            for (List<String> group : getCourseAt(c).prerequisiteExpr.getGroups()) {
+                for (String code : group) {
+                    int p = indexOf(code);
+                    if (p >= 0) offsets[p + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+        int[] targets = new int[offsets[n]];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int c = 0; c < n; c++) {
+            for (List<String> group : getCourseAt(c).prerequisiteExpr.getGroups()) {
+                for (String code : group) {
+                    int p = indexOf(code);
+                    if (p >= 0) targets[fill[p]++] = c;
+                }
+            }
+        }
+        dependentOffsets = offsets;
+        dependents = targets;
     }
 
     private List<String> parseCSVLine(String line) {
@@ -69,6 +206,13 @@ public class CourseCatalog {
         return fields;
     }
 
+    /**
+     * @return Problems found when the catalog was loaded.
+     */
+    public ValidationReport getValidationReport() {
+        return validationReport;
+    }
+
     public CourseData getCourse(String code) {
         return catalog.get(code);
     }
@@ -76,6 +220,29 @@ public class CourseCatalog {
     public Map<String, CourseData> getAllCourses() {
         return catalog;
     }
+
+    /**
+     * @return Catalog index of the course, or -1 if it is not in the catalog.
+     */
+    public int indexOf(String code) {
+        Integer idx = indexByCode.get(code);
+        return idx == null ? -1 : idx;
+    }
+
+    public String codeAt(int index) {
+        return codes.get(index);
+    }
+
+    public CourseData getCourseAt(int index) {
+        return catalog.get(codes.get(index));
+    }
+
+    /**
+     * @return Number of indexed courses.
+     */
+    public int size() {
+        return codes.size();
+    }
 }
 
 
@@ -1,14 +1,20 @@
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class CourseData {
     public String courseCode;
     public String courseName;
-    public List<String> prerequisites;
+    public List<String> prerequisites;          // every course mentioned in prerequisiteExpr
+    public PrerequisiteExpr prerequisiteExpr;   // AND of OR-groups
+    public int index = -1;                      // position in the catalog, set by CourseCatalog
     public boolean offeredFall;
     public boolean offeredSpring;
     public double ratingFall;
     public double ratingSpring;
+    public Set<Season> extraSeasons = EnumSet.noneOf(Season.class); // Winter/Summer offerings, from the optional column
     public int division;
     public boolean isWritingIntensive;
     public boolean isDPE;
@@ -17,6 +23,7 @@ public class CourseData {
     public String days;       // p.ej. "Mon/Wed/Fri"
     public String startTime;  // p.ej. "09:00"
     public String endTime;    // p.ej. "10:15"
+    public List<Section> sections = new ArrayList<>(); // every meeting pattern, first one mirrors days/startTime/endTime
     // ────────────────────────────────────────
 
     public CourseData(String courseCode, String courseName, List<String> prerequisites,
@@ -27,9 +34,20 @@ public class CourseData {
                       String days, String startTime, String endTime
                       // ────────────────────────────────────
     ) {
+        this(courseCode, courseName, PrerequisiteExpr.allOf(prerequisites),
+             offeredFall, offeredSpring, ratingFall, ratingSpring,
+             division, isWritingIntensive, isDPE, days, startTime, endTime);
+    }
+
+    public CourseData(String courseCode, String courseName, PrerequisiteExpr prerequisiteExpr,
+                      boolean offeredFall, boolean offeredSpring,
+                      double ratingFall, double ratingSpring,
+                      int division, boolean isWritingIntensive, boolean isDPE,
+                      String days, String startTime, String endTime) {
         this.courseCode = courseCode;
         this.courseName = courseName;
-        this.prerequisites = prerequisites;
+        this.prerequisiteExpr = prerequisiteExpr;
+        this.prerequisites = prerequisiteExpr.referencedCourses();
         this.offeredFall = offeredFall;
         this.offeredSpring = offeredSpring;
         this.ratingFall = ratingFall;
@@ -41,6 +59,7 @@ public class CourseData {
         this.days = days;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.sections.add(new Section(courseCode, "01", days, startTime, endTime));
         // ───────────────────────────────────────
     }
 
@@ -60,4 +79,23 @@ public class CourseData {
       return offeredSpring;
   }
 
+  public boolean isOfferedIn(Season season) {
+      if (season == Season.FALL) return offeredFall;
+      if (season == Season.SPRING) return offeredSpring;
+      return extraSeasons.contains(season);
+  }
+
+  /**
+   * Winter and Summer have no rating column, so they use the better of the two ratings.
+   */
+  public double ratingIn(Season season) {
+      if (season == Season.FALL) return ratingFall;
+      if (season == Season.SPRING) return ratingSpring;
+      return Math.max(ratingFall, ratingSpring);
+  }
+
+  public boolean isOfferedAtAll() {
+      return offeredFall || offeredSpring || !extraSeasons.isEmpty();
+  }
+
 }
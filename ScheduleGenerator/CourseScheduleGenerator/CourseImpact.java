@@ -0,0 +1,37 @@
+import java.util.*;
+
+/**
+ * Result of one what-if evaluated by ImpactAnalyzer:
+ * what happens to the plan if the student fails (or skips) one course.
+ */
+public class CourseImpact {
+    public final String courseCode;
+    public final String termLabel;          // term where the course was planned
+    public final int semestersSlipped;      // how many terms graduation moves
+    public final List<String> delayedCourses; // planned courses that move to a later term
+
+    CourseImpact(String courseCode, String termLabel, int semestersSlipped, List<String> delayedCourses) {
+        this.courseCode = courseCode;
+        this.termLabel = termLabel;
+        this.semestersSlipped = semestersSlipped;
+        this.delayedCourses = delayedCourses;
+    }
+
+    /**
+     * Orders the most load-bearing courses first: larger slip, then more
+     * delayed courses, then course code.
+     */
+    static final Comparator<CourseImpact> BY_SENSITIVITY = (a, b) -> {
+        if (a.semestersSlipped != b.semestersSlipped) return Integer.compare(b.semestersSlipped, a.semestersSlipped);
+        if (a.delayedCourses.size() != b.delayedCourses.size()) {
+            return Integer.compare(b.delayedCourses.size(), a.delayedCourses.size());
+        }
+        return a.courseCode.compareTo(b.courseCode);
+    };
+
+    @Override
+    public String toString() {
+        return courseCode + " (" + termLabel + "): +" + semestersSlipped + " semester(s), "
+            + delayedCourses.size() + " course(s) delayed " + delayedCourses;
+    }
+}
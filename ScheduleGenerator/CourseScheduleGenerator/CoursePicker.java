@@ -0,0 +1,94 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+
+/**
+ * Type-ahead course picker backed by a shared CourseSearchIndex.
+ * The drop-down only holds the matches of what has been typed so far
+ * (at most MAX_SUGGESTIONS), instead of the whole catalog.
+ */
+public class CoursePicker extends JComboBox<String> {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_SUGGESTIONS = 15;
+
+    private CourseSearchIndex index;
+    private final DefaultComboBoxModel<String> suggestions = new DefaultComboBoxModel<>();
+    private boolean updating = false;
+
+    public CoursePicker(CourseSearchIndex index) {
+        this.index = index;
+        setModel(suggestions);
+        setEditable(true);
+        setPrototypeDisplayValue("XXXX 000 - XXXXXXXXXXXXXX");
+
+        // Show code and name in the list, keep only the code in the model
+        setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int i,
+                                                          boolean selected, boolean focus) {
+                Object text = value == null ? null : CoursePicker.this.index.describe((String) value);
+                return super.getListCellRendererComponent(list, text, i, selected, focus);
+            }
+        });
+
+        // Start with the first courses, but with nothing picked
+        for (String code : index.search("", MAX_SUGGESTIONS)) {
+            suggestions.addElement(code);
+        }
+        setSelectedItem(null);
+
+        JTextComponent editor = (JTextComponent) getEditor().getEditorComponent();
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                refresh(editor);
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                refresh(editor);
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    // The model cannot change inside a document event, so it is updated right after
+    private void refresh(JTextComponent editor) {
+        if (updating) return;
+        SwingUtilities.invokeLater(() -> {
+            String text = editor.getText();
+            updating = true;
+            suggestions.removeAllElements();
+            for (String code : index.search(text, MAX_SUGGESTIONS)) {
+                suggestions.addElement(code);
+            }
+            editor.setText(text);
+            updating = false;
+            if (editor.isFocusOwner() && suggestions.getSize() > 0 && !index.contains(text.trim())) {
+                hidePopup();
+                showPopup();
+            }
+        });
+    }
+
+    /**
+     * Switches to the index of a reloaded catalog, keeping the typed text.
+     */
+    public void setIndex(CourseSearchIndex index) {
+        this.index = index;
+        refresh((JTextComponent) getEditor().getEditorComponent());
+    }
+
+    /**
+     * @return The picked course code, or null if the text is not a catalog code.
+     */
+    public String getSelectedCode() {
+        Object item = isEditable() ? getEditor().getItem() : getSelectedItem();
+        if (item == null) return null;
+        String code = item.toString().trim();
+        return index.contains(code) ? code : null;
+    }
+}
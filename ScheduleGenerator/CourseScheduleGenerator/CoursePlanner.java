@@ -2,50 +2,75 @@
 import java.util.*;
 
 /**
- * Class responsible for generating the 4-year plan (8 semesters)
+ * Class responsible for generating the plan (by default 4 years, 8 semesters)
  * for a student, respecting prerequisites, availability,
  * professor ratings, and avoiding schedule conflicts.
+ *
+ * One planner can plan many majors (MajorOverlay) on the same graph, also from
+ * several threads; only getLastSections/getLastFeasibility then belong to
+ * whichever plan finished last.
  */
 public class CoursePlanner {
     private DAG graph;                          // Prerequisite graph
     private CourseCatalog catalog;              // Course data catalog
     private int maxCoursesPerSem;               // Maximum courses per semester
+    private TermCalendar calendar;              // Terms of the plan
+    private Map<Integer, List<Section>> lastSections = new HashMap<>(); // Sections chosen by the last plan
+
+    // Catalog indexes of the courses offered in each season (by Season ordinal),
+    // best rating first (ties keep the topological order). Built once, on the first plan.
+    private int[][] seasonOrders;
+
+    private FeasibilityChecker feasibilityChecker;                      // Built on first use
+    private FeasibilityReport lastFeasibility;                          // Bounds used by the last plan
 
     /**
      * Constructor: receives the catalog and the course limit per semester.
      */
     public CoursePlanner(CourseCatalog catalog, int maxCoursesPerSem) {
+        this(catalog, maxCoursesPerSem, TermCalendar.FOUR_YEAR_SEMESTERS);
+    }
+
+    /**
+     * Constructor for another term system or horizon (quarters, summer terms, 5 years...).
+     */
+    public CoursePlanner(CourseCatalog catalog, int maxCoursesPerSem, TermCalendar calendar) {
+        this(catalog, buildGraph(catalog), maxCoursesPerSem, calendar);
+    }
+
+    /**
+     * Constructor with a graph already built for this catalog (for example the one
+     * kept up to date by CatalogWatcher). The planner only reads the graph, so it
+     * can be shared, but it must not be modified while the planner is in use.
+     */
+    public CoursePlanner(CourseCatalog catalog, DAG graph, int maxCoursesPerSem, TermCalendar calendar) {
         this.catalog = catalog;
         this.maxCoursesPerSem = maxCoursesPerSem;
-        this.graph = new DAG();
-        buildGraphFromCatalog();
+        this.calendar = calendar;
+        this.graph = graph;
     }
 
     /**
      * Builds the DAG using the prerequisites of each CourseData in the catalog.
      */
-    private void buildGraphFromCatalog() {
+    public static DAG buildGraph(CourseCatalog catalog) {
+        DAG graph = new DAG();
         for (CourseData cd : catalog.getAllCourses().values()) {
             graph.addCourse(cd.courseCode);
-            for (String pre : cd.prerequisites) {
-                graph.addPrerequisite(cd.courseCode, pre);
+            for (List<String> group : cd.prerequisiteExpr.getGroups()) {
+                graph.addPrerequisiteGroup(cd.courseCode, group);
             }
         }
-    }
-
-    private static class Slot {
-        List<String> days;
-        String start;
-        String end;
+        return graph;
     }
 
     /**
-     * Generates the 8-semester plan given required and elective courses.
+     * Generates the plan given required and elective courses.
      *
      * @param requiredCourses Set of required course codes for the major.
      * @param electiveCourses Set of elective course codes for the major.
      * @param preferredSemesters Map from course code to preferred semester string ("Fall" or "Spring")
-     * @return Map semester (1–8) → list of assigned course codes.
+     * @return Map semester (1–8 with the default calendar) → list of assigned course codes.
      */
     public Map<Integer, List<String>> 
     FourYearPlan(
@@ -53,93 +78,200 @@ public class CoursePlanner {
             Set<String> electiveCourses,
             Map<String, String> preferredSemesters) {  // <-- nuevo parámetro
 
-        Map<Integer, List<String>> plan = new HashMap<>();
-        Set<String> completed = new HashSet<>();
-        List<String> topoOrder = graph.getCourseOrder();
-        Set<String> remaining = new LinkedHashSet<>(topoOrder);
+        return plan(requiredCourses, electiveCourses, preferredSemesters).toNumberedMap();
+    }
 
-        Map<Integer, List<Slot>> semesterSlots = new HashMap<>();
+    /**
+     * Same as FourYearPlan, but returns the plan as arrays indexed by term.
+     *
+     * @param preferredSemesters Map from course code to season label ("Fall", "Winter", "Spring" or "Summer")
+     */
+    public SchedulePlan plan(
+            Set<String> requiredCourses,
+            Set<String> electiveCourses,
+            Map<String, String> preferredSemesters) {
 
-        for (int sem = 1; sem <= 8; sem++) {
-            boolean isFall = (sem % 2 == 1);
-            List<String> semCourses = new ArrayList<>();
-            List<Slot> usedSlots = new ArrayList<>();
+        // Unknown required codes are kept for the feasibility report
+        return plan(new MajorOverlay(catalog, "major", requiredCourses, electiveCourses),
+                    preferredSemesters, requiredCourses);
+    }
 
-            List<CourseData> candidates = new ArrayList<>();
-            for (String code : remaining) {
-                CourseData cd = catalog.getCourse(code);
+    /**
+     * Plans a major (or a composition of majors and minors) on the shared graph.
+     * Only the courses of the overlay are looked at each semester; its own
+     * prerequisites and department quotas are checked on top of the catalog's.
+     *
+     * @param overlay Required/elective courses and rules of the major; must be built on this catalog.
+     * @param preferredSemesters Map from course code to season label ("Fall", "Winter", "Spring" or "Summer")
+     */
+    public SchedulePlan plan(MajorOverlay overlay, Map<String, String> preferredSemesters) {
+        return plan(overlay, preferredSemesters, overlay.getRequiredCourses());
+    }
 
-                if (!requiredCourses.contains(code) && !electiveCourses.contains(code))
-                    continue;
+    private SchedulePlan plan(MajorOverlay overlay, Map<String, String> preferredSemesters, Set<String> requiredCourses) {
+        if (overlay.getCatalog() != catalog) throw new IllegalArgumentException("Overlay of another catalog");
 
-                // Filtrar por oferta semestral
-                if ((isFall && !cd.offeredFall) || (!isFall && !cd.offeredSpring))
-                    continue;
+        SchedulePlan plan = new SchedulePlan(catalog, calendar);
+        buildSeasonOrders();
 
-                // NUEVO: Verificar preferencia de semestre, si existe
-                if (preferredSemesters.containsKey(code)) {
-                    String pref = preferredSemesters.get(code);
-                    // Si la preferencia es "Fall" pero el semestre no es Fall, saltar
-                    if (pref.equalsIgnoreCase("Fall") && !isFall) continue;
-                    // Si la preferencia es "Spring" pero el semestre no es Spring, saltar
-                    if (pref.equalsIgnoreCase("Spring") && isFall) continue;
-                }
+        // Earliest feasible semester of every course, to skip hopeless candidates early.
+        // The major's own prerequisites only make courses later, so these stay lower bounds.
+        FeasibilityReport bounds = checkFeasibility(requiredCourses, preferredSemesters);
+        lastFeasibility = bounds;
 
-                if (!graph.canTakeCourse(code, completed))
-                    continue;
+        int n = catalog.size();
+        long[] required = overlay.requiredBits();
+        long[] elective = overlay.electiveBits();
+        long[] restricted = CourseBits.create(n);
+        long[][] onlyIn = new long[Season.values().length][];
+        for (Map.Entry<String, Season> pref : preferredSeasons(preferredSemesters).entrySet()) {
+            int idx = catalog.indexOf(pref.getKey());
+            if (idx < 0) continue;
+            int s = pref.getValue().ordinal();
+            if (onlyIn[s] == null) onlyIn[s] = CourseBits.create(n);
+            CourseBits.set(onlyIn[s], idx);
+            CourseBits.set(restricted, idx);
+        }
+        long[] completed = CourseBits.create(n);
 
-                candidates.add(cd);
+        // Per season, the required and then the elective courses of the major that are
+        // not restricted to another season, by rating. Built once, so each semester
+        // only walks the major's courses instead of the whole catalog.
+        int[][][] candidatesIn = new int[Season.values().length][][];
+        for (Season season : calendar.seasons()) {
+            long[] only = onlyIn[season.ordinal()];
+            long[] allowed = new long[completed.length];
+            for (int w = 0; w < completed.length; w++) {
+                allowed[w] = ~restricted[w] | (only == null ? 0 : only[w]);
             }
+            candidatesIn[season.ordinal()] = new int[][]{
+                select(seasonOrders[season.ordinal()], required, allowed),
+                select(seasonOrders[season.ordinal()], elective, allowed)
+            };
+        }
+
+        Map<Integer, List<Section>> semesterSections = new HashMap<>();
+
+        for (int term = 0; term < calendar.size(); term++) {
+            Season season = calendar.seasonOf(term);
+            SectionScheduler sections = new SectionScheduler();
+
+            // Prerequisites are checked against what was completed before this semester
+            long[] completedBefore = completed.clone();
+            int[] quotaCounts = new int[overlay.quotaCount()];
+
+            // Required courses first, then electives, both by rating
+            for (int[] candidates : candidatesIn[season.ordinal()]) {
+                for (int idx : candidates) {
+                    if (plan.count(term) >= maxCoursesPerSem) break;
+
+                    if (CourseBits.get(completedBefore, idx)) continue;
+                    if (term < bounds.earliestOf(idx)) continue;
+
+                    CourseData cd = catalog.getCourseAt(idx);
+                    if (!cd.prerequisiteExpr.isSatisfiedBy(completedBefore)) continue;
+                    if (!overlay.prerequisitesMet(idx, completedBefore)) continue;
+                    if (!overlay.quotaAllows(idx, term, calendar, quotaCounts)) continue;
+
+                    // Picks a section, re-choosing earlier ones if needed
+                    if (!sections.tryAdd(cd)) continue;
 
-            candidates.sort((a, b) -> {
-                double ra = isFall ? a.ratingFall : a.ratingSpring;
-                double rb = isFall ? b.ratingFall : b.ratingSpring;
-                return Double.compare(rb, ra);
-            });
-
-            for (boolean pickRequired : new boolean[]{true, false}) {
-                for (CourseData cd : candidates) {
-                    if (semCourses.size() >= maxCoursesPerSem) break;
-
-                    if (pickRequired && !requiredCourses.contains(cd.courseCode)) continue;
-                    if (!pickRequired
-                            && (!electiveCourses.contains(cd.courseCode)
-                                || requiredCourses.contains(cd.courseCode)))
-                        continue;
-
-                    String[] daysArr = cd.days.split("/");
-                    Slot slot = new Slot();
-                    slot.days = Arrays.asList(daysArr);
-                    slot.start = cd.startTime;
-                    slot.end = cd.endTime;
-
-                    boolean conflict = false;
-                    for (Slot used : usedSlots) {
-                        for (String d : slot.days) {
-                            if (used.days.contains(d)
-                                && !(slot.end.compareTo(used.start) <= 0
-                                     || slot.start.compareTo(used.end) >= 0)) {
-                                conflict = true;
-                                break;
-                            }
-                        }
-                        if (conflict) break;
-                    }
-                    if (conflict) continue;
-
-                    semCourses.add(cd.courseCode);
-                    usedSlots.add(slot);
-                    completed.add(cd.courseCode);
-                    remaining.remove(cd.courseCode);
+                    plan.add(term, idx);
+                    CourseBits.set(completed, idx);
+                    overlay.countQuota(idx, quotaCounts);
                 }
-                if (semCourses.size() >= maxCoursesPerSem) break;
+                if (plan.count(term) >= maxCoursesPerSem) break;
             }
 
-            plan.put(sem, semCourses);
-            semesterSlots.put(sem, usedSlots);
+            semesterSections.put(term + 1, sections.getChosenSections());
         }
 
+        lastSections = semesterSections;
         return plan;
     }
+
+    /**
+     * Checks, before planning, whether every required course fits in the terms of
+     * the calendar given prerequisite chains, seasonal availability and preferences.
+     *
+     * @param requiredCourses Set of required course codes for the major.
+     * @param preferredSemesters Map from course code to preferred season label ("Fall", "Spring"...)
+     * @return Earliest/latest semester of every course and the problems found.
+     */
+    public FeasibilityReport checkFeasibility(Set<String> requiredCourses, Map<String, String> preferredSemesters) {
+        return feasibilityChecker().check(requiredCourses, Collections.emptySet(), 0, calendar,
+            preferredSeasons(preferredSemesters));
+    }
+
+    private synchronized FeasibilityChecker feasibilityChecker() {
+        if (feasibilityChecker == null) feasibilityChecker = new FeasibilityChecker(catalog);
+        return feasibilityChecker;
+    }
+
+    public TermCalendar getCalendar() {
+        return calendar;
+    }
+
+    // Season labels to seasons; unknown labels are ignored
+    static Map<String, Season> preferredSeasons(Map<String, String> preferredSemesters) {
+        Map<String, Season> result = new HashMap<>();
+        preferredSemesters.forEach((code, label) -> {
+            Season season = Season.fromLabel(label);
+            if (season != null) result.put(code, season);
+        });
+        return result;
+    }
+
+    /**
+     * @return Feasibility bounds computed by the last call to FourYearPlan.
+     */
+    public FeasibilityReport getLastFeasibility() {
+        return lastFeasibility;
+    }
+
+    /**
+     * Sorts the offered courses of each season by rating, once per catalog.
+     * The topological order breaks ties, like the stable sort it replaces.
+     */
+    private synchronized void buildSeasonOrders() {
+        if (seasonOrders != null) return;
+
+        List<Integer> topo = new ArrayList<>();
+        for (String code : graph.getCourseOrder()) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) topo.add(idx);
+        }
+
+        int[][] orders = new int[Season.values().length][];
+        for (Season season : calendar.seasons()) {
+            if (orders[season.ordinal()] != null) continue;
+            List<Integer> offered = new ArrayList<>();
+            for (int idx : topo) {
+                if (catalog.getCourseAt(idx).isOfferedIn(season)) offered.add(idx);
+            }
+            offered.sort((a, b) -> Double.compare(catalog.getCourseAt(b).ratingIn(season),
+                                                  catalog.getCourseAt(a).ratingIn(season)));
+            orders[season.ordinal()] = offered.stream().mapToInt(Integer::intValue).toArray();
+        }
+        seasonOrders = orders;
+    }
+
+    // Courses of 'order' in both bitsets, keeping the order
+    private static int[] select(int[] order, long[] bits, long[] allowed) {
+        int[] result = new int[order.length];
+        int n = 0;
+        for (int idx : order) {
+            if (CourseBits.get(bits, idx) && CourseBits.get(allowed, idx)) result[n++] = idx;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return Semester (from 1) → sections chosen by the last call to FourYearPlan,
+     *         in the same order as the course codes of that semester.
+     */
+    public Map<Integer, List<Section>> getLastSections() {
+        return lastSections;
+    }
 }
 
@@ -1,26 +1,58 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 
 public class CoursePlannerGUI extends JFrame {
-    private final CourseCatalog catalog;
+    private static final String CATALOG_FILE = "sample_courses_with_seasons.csv";
+    private static final String PLAN_STORE_FILE = "plans.log";
+
+    private CatalogWatcher watcher;             // reloads the catalog when the file changes (null if it failed to load)
+    private CatalogWatcher.Snapshot snapshot;   // current catalog version, only swapped on the event thread
+    private PlanStore planStore;                // keeps generated plans between runs (null if it failed to open)
+    private final JTextField studentIdField;
     private final JTextArea outputArea;
-    private final JComboBox<String> courseSelector;
-    private final JComboBox<String> semesterSelector;
+    private final CoursePicker courseSelector;
+    private final JComboBox<TermCalendar> calendarSelector;
+    private final JComboBox<Season> semesterSelector;
     private final DefaultListModel<String> preferredCoursesModel;
     private final JCheckBox fiveCoursesInSemesterCheckBox;
     private final JPanel progressPanel;
 
+    // Last generated plan and its inputs, for the failure-impact analysis
+    private SchedulePlan lastPlan;
+    private CourseCatalog lastPlanCatalog;
+    private Set<Integer> lastFiveCourseTerms;
+    private Set<String> lastTaken;
+
     public CoursePlannerGUI() {
         super("Course Planner");
-        this.catalog = new CourseCatalog();
         try {
-            catalog.loadFromCSV("sample_courses_with_seasons.csv");
+            watcher = new CatalogWatcher(Paths.get(CATALOG_FILE));
+            snapshot = watcher.current();
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error loading courses: " + e.getMessage(), "Load Error", JOptionPane.ERROR_MESSAGE);
+            CourseCatalog empty = new CourseCatalog();
+            snapshot = new CatalogWatcher.Snapshot(CatalogDiff.fingerprint(empty), empty,
+                    CoursePlanner.buildGraph(empty), new CourseSearchIndex(empty));
         }
 
+        try {
+            planStore = new PlanStore(Paths.get(PLAN_STORE_FILE));
+        } catch (IOException e) {
+            System.err.println("Plans will not be saved: " + e.getMessage());
+        }
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closePlanStore();
+            }
+        });
+
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1200, 800);
         setLayout(new BorderLayout());
@@ -28,17 +60,26 @@ public class CoursePlannerGUI extends JFrame {
         // Top panel for preferences
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
-        courseSelector = new JComboBox<>();
-        catalog.getAllCourses().keySet().stream().sorted().forEach(courseSelector::addItem);
+        // One search index shared by every course picker
+        courseSelector = new CoursePicker(snapshot.searchIndex);
 
-        semesterSelector = new JComboBox<>(new String[]{"Fall", "Spring"});
+        // Term system and horizon of the plan; the preferred seasons follow it
+        calendarSelector = new JComboBox<>(new TermCalendar[]{
+                TermCalendar.FOUR_YEAR_SEMESTERS,
+                TermCalendar.semesters(5),
+                TermCalendar.quarters(4),
+                TermCalendar.semestersWithSummer(4)
+        });
+        semesterSelector = new JComboBox<>();
+        calendarSelector.addActionListener(e -> refreshSeasons());
+        refreshSeasons();
 
         JButton addPreferenceButton = new JButton("Add Preference");
         preferredCoursesModel = new DefaultListModel<>();
         JList<String> preferredCoursesList = new JList<>(preferredCoursesModel);
         addPreferenceButton.addActionListener(e -> {
-            String course = (String) courseSelector.getSelectedItem();
-            String semester = (String) semesterSelector.getSelectedItem();
+            String course = courseSelector.getSelectedCode();
+            Season semester = (Season) semesterSelector.getSelectedItem();
             if (course != null && semester != null) {
                 String entry = course + " - " + semester;
                 if (!preferredCoursesModel.contains(entry)) {
@@ -49,12 +90,24 @@ public class CoursePlannerGUI extends JFrame {
 
         fiveCoursesInSemesterCheckBox = new JCheckBox("Take 5 courses in specific semester");
 
+        studentIdField = new JTextField(8);
+        JButton loadPlanButton = new JButton("Load Saved Plan");
+        loadPlanButton.addActionListener(e -> loadSavedPlan());
+        JButton exportButton = new JButton("Export Saved Plans");
+        exportButton.addActionListener(e -> exportSavedPlans());
+
+        topPanel.add(new JLabel("Terms:"));
+        topPanel.add(calendarSelector);
         topPanel.add(new JLabel("Select Course:"));
         topPanel.add(courseSelector);
         topPanel.add(new JLabel("Preferred Semester:"));
         topPanel.add(semesterSelector);
         topPanel.add(addPreferenceButton);
         topPanel.add(fiveCoursesInSemesterCheckBox);
+        topPanel.add(new JLabel("Student ID:"));
+        topPanel.add(studentIdField);
+        topPanel.add(loadPlanButton);
+        topPanel.add(exportButton);
 
         add(topPanel, BorderLayout.NORTH);
 
@@ -64,10 +117,15 @@ public class CoursePlannerGUI extends JFrame {
         JScrollPane scrollPane = new JScrollPane(outputArea);
         add(scrollPane, BorderLayout.CENTER);
 
-        // Bottom panel for action
-        JButton generatePlanButton = new JButton("Generate 4-Year Plan");
+        // Bottom panel for actions
+        JButton generatePlanButton = new JButton("Generate Plan");
         generatePlanButton.addActionListener(e -> generatePlan());
-        add(generatePlanButton, BorderLayout.SOUTH);
+        JButton impactButton = new JButton("Analyze Failure Impact");
+        impactButton.addActionListener(e -> analyzeImpact());
+        JPanel bottomPanel = new JPanel(new GridLayout(1, 2));
+        bottomPanel.add(generatePlanButton);
+        bottomPanel.add(impactButton);
+        add(bottomPanel, BorderLayout.SOUTH);
 
         // Side panel for preferred course list and graduation progress
         JPanel sidePanel = new JPanel();
@@ -87,9 +145,36 @@ public class CoursePlannerGUI extends JFrame {
         add(sidePanel, BorderLayout.EAST);
 
         setVisible(true);
+
+        // Pick up edits of the CSV without a restart
+        if (watcher != null) {
+            watcher.addListener(snapshot -> SwingUtilities.invokeLater(() -> useSnapshot(snapshot)));
+            try {
+                watcher.start();
+            } catch (IOException e) {
+                System.err.println("Catalog changes will not be picked up: " + e.getMessage());
+            }
+        }
+    }
+
+    private void useSnapshot(CatalogWatcher.Snapshot snapshot) {
+        this.snapshot = snapshot;
+        courseSelector.setIndex(snapshot.searchIndex);
+        setTitle("Course Planner (catalog version " + snapshot.version + ")");
     }
 
-    private void updateProgressPanel(Set<String> completedCourses) {
+    private TermCalendar selectedCalendar() {
+        return (TermCalendar) calendarSelector.getSelectedItem();
+    }
+
+    private void refreshSeasons() {
+        semesterSelector.removeAllItems();
+        for (Season season : selectedCalendar().seasons()) {
+            semesterSelector.addItem(season);
+        }
+    }
+
+    private void updateProgressPanel(CourseCatalog catalog, Set<String> completedCourses) {
         int div1 = 0, div2 = 0, div3 = 0, writing = 0, dpe = 0;
 
         for (String code : completedCourses) {
@@ -123,8 +208,19 @@ public class CoursePlannerGUI extends JFrame {
 
     private void generatePlan() {
         outputArea.setText("");
-
-        String[] years = {"Freshman", "Sophomore", "Junior", "Senior"};
+        TermCalendar calendar = selectedCalendar();
+
+        // The dialogs below keep the event thread running, so a reload may swap the
+        // catalog meanwhile; this request stays on the snapshot it started with.
+        CatalogWatcher.Snapshot snapshot = this.snapshot;
+        CourseCatalog catalog = snapshot.catalog;
+        FourYearPlanner planner = snapshot.fourYearPlanner(calendar);
+
+        String[] yearNames = {"Freshman", "Sophomore", "Junior", "Senior"};
+        String[] years = new String[calendar.years()];
+        for (int y = 0; y < years.length; y++) {
+            years[y] = y < yearNames.length ? yearNames[y] : "Year " + (y + 1);
+        }
         String currentYear = (String) JOptionPane.showInputDialog(
                 this,
                 "What year are you choosing classes for?",
@@ -136,33 +232,16 @@ public class CoursePlannerGUI extends JFrame {
         );
         if (currentYear == null) return;
 
-        int semestersCompleted;
-        switch (currentYear) {
-            case "Freshman":
-                semestersCompleted = 0;
-                break;
-            case "Sophomore":
-                semestersCompleted = 2;
-                break;
-            case "Junior":
-                semestersCompleted = 4;
-                break;
-            case "Senior":
-                semestersCompleted = 6;
-                break;
-            default:
-                semestersCompleted = 0;
-        }
+        int semestersCompleted = Arrays.asList(years).indexOf(currentYear) * calendar.termsPerYear();
 
         Set<String> completedCourses = new HashSet<>();
         Set<Integer> semestersWithFive = new HashSet<>();
         if (semestersCompleted > 0) {
-            String[] pastLabels = {"Fall 1", "Spring 1", "Fall 2", "Spring 2", "Fall 3", "Spring 3", "Fall 4", "Spring 4"};
             JPanel panel = new JPanel(new GridLayout(semestersCompleted, 1));
             panel.setPreferredSize(new Dimension(400, semestersCompleted * 50));
             JCheckBox[] boxes = new JCheckBox[semestersCompleted];
             for (int i = 0; i < semestersCompleted; i++) {
-                boxes[i] = new JCheckBox(pastLabels[i]);
+                boxes[i] = new JCheckBox(calendar.label(i));
                 panel.add(boxes[i]);
             }
             int resp = JOptionPane.showConfirmDialog(
@@ -184,14 +263,13 @@ public class CoursePlannerGUI extends JFrame {
             }
             JPanel selPanel = new JPanel(new GridLayout(totalCourses, 2, 5, 5));
             selPanel.setPreferredSize(new Dimension(500, totalCourses * 35));
-            List<JComboBox<String>> selectors = new ArrayList<>();
-            String[] allCodes = catalog.getAllCourses().keySet().toArray(new String[0]);
+            List<CoursePicker> selectors = new ArrayList<>();
 
             for (int sem = 0; sem < semestersCompleted; sem++) {
                 int slots = semestersWithFive.contains(sem) ? 5 : 4;
                 for (int j = 1; j <= slots; j++) {
-                    selPanel.add(new JLabel(pastLabels[sem] + " — course " + j + ":"));
-                    JComboBox<String> box = new JComboBox<>(allCodes);
+                    selPanel.add(new JLabel(calendar.label(sem) + " — course " + j + ":"));
+                    CoursePicker box = new CoursePicker(snapshot.searchIndex);
                     selPanel.add(box);
                     selectors.add(box);
                 }
@@ -204,29 +282,26 @@ public class CoursePlannerGUI extends JFrame {
                     JOptionPane.PLAIN_MESSAGE
             );
             if (resp2 != JOptionPane.OK_OPTION) return;
-            for (JComboBox<String> box : selectors) {
-                if (box.getSelectedItem() != null) {
-                    completedCourses.add(((String) box.getSelectedItem()).trim());
+            for (CoursePicker box : selectors) {
+                String code = box.getSelectedCode();
+                if (code != null) {
+                    completedCourses.add(code);
                 }
             }
         }
 
-        Map<String, String> prefs = new HashMap<>();
+        // Preferences for seasons the calendar does not have are ignored
+        Map<String, Season> prefs = new HashMap<>();
         for (int i = 0; i < preferredCoursesModel.getSize(); i++) {
             String entry = preferredCoursesModel.get(i);
             String[] parts = entry.split(" - ");
-            if (parts.length == 2) prefs.put(parts[0], parts[1]);
+            Season season = parts.length == 2 ? Season.fromLabel(parts[1]) : null;
+            if (season != null && calendar.hasSeason(season)) prefs.put(parts[0], season);
         }
-        Set<String> prefFall = new HashSet<>();
-        Set<String> prefSpring = new HashSet<>();
-        prefs.forEach((c, s) -> {
-            if ("Fall".equalsIgnoreCase(s)) prefFall.add(c);
-            else if ("Spring".equalsIgnoreCase(s)) prefSpring.add(c);
-        });
 
         Set<Integer> extraFive = new HashSet<>();
         if (fiveCoursesInSemesterCheckBox.isSelected()) {
-            String[] opts = {"Fall 1", "Spring 1", "Fall 2", "Spring 2", "Fall 3", "Spring 3", "Fall 4", "Spring 4"};
+            String[] opts = calendar.labels().toArray(new String[0]);
             String sel = (String) JOptionPane.showInputDialog(
                     this,
                     "Select semester for 5 courses:",
@@ -239,21 +314,142 @@ public class CoursePlannerGUI extends JFrame {
             if (sel != null) extraFive.add(Arrays.asList(opts).indexOf(sel));
         }
 
-        FourYearPlanner planner = new FourYearPlanner(catalog);
-        Map<String, List<CourseData>> plan = planner.generatePlan(
-                prefFall, prefSpring, extraFive, completedCourses, semestersCompleted
+        // Preferred courses that cannot fit are reported before planning
+        FeasibilityReport feasibility = planner.checkFeasibility(
+                preferredCodes(), prefs, completedCourses, semestersCompleted);
+        if (!feasibility.isFeasible()) {
+            int resp = JOptionPane.showConfirmDialog(
+                    this,
+                    "Some preferred courses cannot be placed:\n  - "
+                            + String.join("\n  - ", feasibility.getProblems())
+                            + "\n\nGenerate the plan anyway?",
+                    "Preferred courses cannot fit",
+                    JOptionPane.OK_CANCEL_OPTION,
+                    JOptionPane.WARNING_MESSAGE
+            );
+            if (resp != JOptionPane.OK_OPTION) return;
+        }
+
+        SchedulePlan plan = planner.generateSchedulePlan(
+                prefs, extraFive, completedCourses, semestersCompleted
         );
 
-        String[] labels = {"Fall 1", "Spring 1", "Fall 2", "Spring 2", "Fall 3", "Spring 3", "Fall 4", "Spring 4"};
-        for (String lbl : labels) {
-            outputArea.append(lbl + ":\n");
-            for (CourseData cd : plan.getOrDefault(lbl, Collections.emptyList())) {
-                outputArea.append("  - " + cd.courseCode + ": " + cd.courseName + "\n");
+        lastPlan = plan;
+        lastPlanCatalog = catalog;
+        lastFiveCourseTerms = extraFive;
+        lastTaken = completedCourses;
+
+        // Built first and set once; appending to the text area per course redraws it every time
+        StringBuilder text = new StringBuilder();
+        for (int t = 0; t < plan.termCount(); t++) {
+            text.append(calendar.label(t)).append(":\n");
+            for (CourseData cd : plan.coursesIn(t)) {
+                text.append("  - ").append(cd.courseCode).append(": ").append(cd.courseName).append('\n');
+            }
+            text.append('\n');
+        }
+
+        updateProgressPanel(catalog, completedCourses);
+
+        String studentId = studentIdField.getText().trim();
+        if (planStore != null && !studentId.isEmpty()) {
+            try {
+                planStore.put(studentId, snapshot.version, plan);
+                text.append("Saved as the latest plan of ").append(studentId).append(".\n");
+            } catch (IOException e) {
+                text.append("The plan could not be saved: ").append(e.getMessage()).append('\n');
+            }
+        }
+        outputArea.setText(text.toString());
+    }
+
+    private Set<String> preferredCodes() {
+        Set<String> codes = new LinkedHashSet<>();
+        for (int i = 0; i < preferredCoursesModel.getSize(); i++) {
+            codes.add(preferredCoursesModel.get(i).split(" - ")[0]);
+        }
+        return codes;
+    }
+
+    /**
+     * Ranks the courses of the last generated plan by how far graduation slips
+     * if the student fails each one.
+     */
+    private void analyzeImpact() {
+        if (lastPlan == null) {
+            outputArea.setText("Generate a plan first.\n");
+            return;
+        }
+        TermCalendar calendar = lastPlan.getCalendar();
+        List<CourseImpact> impacts = new ImpactAnalyzer(lastPlanCatalog, calendar)
+                .analyze(lastPlan.toLabelMap(), lastFiveCourseTerms, lastTaken);
+
+        StringBuilder text = new StringBuilder("If one course of the plan is failed (most load-bearing first):\n\n");
+        for (CourseImpact impact : impacts) {
+            text.append("  ").append(impact.courseCode).append(" (").append(impact.termLabel).append("): ");
+            text.append(impact.semestersSlipped == 0 ? "no delay to graduation"
+                    : "graduation slips " + impact.semestersSlipped + " term(s)");
+            if (!impact.delayedCourses.isEmpty()) {
+                text.append(", delays ").append(String.join(", ", impact.delayedCourses));
+            }
+            text.append('\n');
+        }
+        outputArea.setText(text.toString());
+    }
+
+    private void loadSavedPlan() {
+        String studentId = studentIdField.getText().trim();
+        if (planStore == null || studentId.isEmpty()) return;
+        try {
+            StoredPlan stored = planStore.latest(studentId);
+            if (stored == null) {
+                outputArea.setText("No saved plan for " + studentId + ".\n");
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            text.append("Saved plan of ").append(studentId)
+                .append(" (catalog version ").append(stored.catalogVersion).append("):\n\n");
+            for (int t = 0; t < stored.termCount(); t++) {
+                text.append(stored.calendar.label(t)).append(":\n");
+                for (String code : stored.codesIn(t)) {
+                    CourseData cd = snapshot.catalog.getCourse(code);
+                    text.append("  - ").append(code)
+                        .append(cd == null ? " (no longer in the catalog)" : ": " + cd.courseName).append('\n');
+                }
+                text.append('\n');
             }
-            outputArea.append("\n");
+            outputArea.setText(text.toString());
+        } catch (IOException e) {
+            outputArea.setText("The saved plan could not be read: " + e.getMessage() + "\n");
         }
+    }
 
-        updateProgressPanel(completedCourses);
+    /**
+     * Writes the latest saved plan of every student to a JSONL file (".jsonl")
+     * or a columnar file (any other name) for analysis.
+     */
+    private void exportSavedPlans() {
+        if (planStore == null) return;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("plans.jsonl"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        try (PlanExporter exporter = PlanExporter.open(chooser.getSelectedFile().toPath())) {
+            int plans = planStore.exportLatest(exporter);
+            outputArea.setText("Exported " + plans + " plans (" + exporter.rowCount() + " courses) to "
+                + chooser.getSelectedFile() + ".\n");
+        } catch (IOException e) {
+            outputArea.setText("The plans could not be exported: " + e.getMessage() + "\n");
+        }
+    }
+
+    private void closePlanStore() {
+        if (planStore == null) return;
+        try {
+            planStore.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the plan store: " + e.getMessage());
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,227 @@
+import java.util.*;
+
+/**
+ * Prefix/token search over course codes and names.
+ *
+ * Every code and name is split into lower-case tokens ("CS 134 Data Structures"
+ * → "cs", "134", "data", "structures") and the (token, course) pairs are kept
+ * in one sorted array. A query token is answered with a binary search for the
+ * first token with that prefix followed by a scan of the matching range, and
+ * the matches of several query tokens are intersected. Built once per catalog
+ * and shared by every picker of the GUI.
+ */
+public class CourseSearchIndex {
+    private final CourseCatalog catalog;
+    private final String[] tokens;   // sorted
+    private final int[] courses;     // course index of tokens[i]
+
+    public CourseSearchIndex(CourseCatalog catalog) {
+        this.catalog = catalog;
+
+        List<String> tokenList = new ArrayList<>();
+        List<Integer> courseList = new ArrayList<>();
+        for (int c = 0; c < catalog.size(); c++) {
+            CourseData cd = catalog.getCourseAt(c);
+            Set<String> seen = new HashSet<>();
+            for (String token : tokenize(cd.courseCode + " " + cd.courseName)) {
+                if (seen.add(token)) {
+                    tokenList.add(token);
+                    courseList.add(c);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[tokenList.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int cmp = tokenList.get(a).compareTo(tokenList.get(b));
+            return cmp != 0 ? cmp : Integer.compare(courseList.get(a), courseList.get(b));
+        });
+
+        tokens = new String[order.length];
+        courses = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            tokens[i] = tokenList.get(order[i]);
+            courses[i] = courseList.get(order[i]);
+        }
+    }
+
+    private CourseSearchIndex(CourseCatalog catalog, String[] tokens, int[] courses) {
+        this.catalog = catalog;
+        this.tokens = tokens;
+        this.courses = courses;
+    }
+
+    /**
+     * Builds the index of a reloaded catalog from this one without sorting every
+     * token again: entries of unchanged courses are kept (their order does not
+     * change, because catalog indexes follow code order) and only the tokens of
+     * the changed courses are sorted and merged in.
+     *
+     * @param newCatalog The reloaded catalog.
+     * @param changed    Codes added, removed or renamed since this index was built.
+     * @return Index bound to newCatalog.
+     */
+    public CourseSearchIndex withChanges(CourseCatalog newCatalog, Collection<String> changed) {
+        Set<String> changedSet = new HashSet<>(changed);
+
+        // Kept entries, with their index in the new catalog
+        String[] keptTokens = new String[tokens.length];
+        int[] keptCourses = new int[tokens.length];
+        int[] remap = new int[catalog.size()];
+        for (int c = 0; c < remap.length; c++) {
+            String code = catalog.codeAt(c);
+            remap[c] = changedSet.contains(code) ? -1 : newCatalog.indexOf(code);
+        }
+        int kept = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            int c = remap[courses[i]];
+            if (c < 0) continue;
+            keptTokens[kept] = tokens[i];
+            keptCourses[kept++] = c;
+        }
+
+        // New entries, sorted the same way as in the constructor
+        List<String> added = new ArrayList<>();
+        List<Integer> addedCourses = new ArrayList<>();
+        for (String code : changedSet) {
+            CourseData cd = newCatalog.getCourse(code);
+            if (cd == null) continue;
+            for (String token : new LinkedHashSet<>(tokenize(cd.courseCode + " " + cd.courseName))) {
+                added.add(token);
+                addedCourses.add(cd.index);
+            }
+        }
+        Integer[] order = new Integer[added.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> {
+            int cmp = added.get(x).compareTo(added.get(y));
+            return cmp != 0 ? cmp : Integer.compare(addedCourses.get(x), addedCourses.get(y));
+        });
+
+        // Merge
+        String[] mergedTokens = new String[kept + order.length];
+        int[] mergedCourses = new int[mergedTokens.length];
+        int i = 0, j = 0, n = 0;
+        while (i < kept || j < order.length) {
+            boolean takeKept;
+            if (j == order.length) {
+                takeKept = true;
+            } else if (i == kept) {
+                takeKept = false;
+            } else {
+                int cmp = keptTokens[i].compareTo(added.get(order[j]));
+                takeKept = cmp < 0 || (cmp == 0 && keptCourses[i] < addedCourses.get(order[j]));
+            }
+            if (takeKept) {
+                mergedTokens[n] = keptTokens[i];
+                mergedCourses[n++] = keptCourses[i++];
+            } else {
+                mergedTokens[n] = added.get(order[j]);
+                mergedCourses[n++] = addedCourses.get(order[j++]);
+            }
+        }
+        return new CourseSearchIndex(newCatalog, mergedTokens, mergedCourses);
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0) {
+                result.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0) result.add(sb.toString());
+        return result;
+    }
+
+    /**
+     * Finds the courses whose code or name has a token starting with every
+     * token of the query ("cs 13", "data str", "intro psy"...).
+     *
+     * @param query Text typed by the user.
+     * @param limit Maximum number of results.
+     * @return Matching course codes in code order (every course if the query is empty).
+     */
+    public List<String> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        List<String> result = new ArrayList<>();
+
+        if (queryTokens.isEmpty()) {
+            for (int c = 0; c < catalog.size() && result.size() < limit; c++) {
+                result.add(catalog.codeAt(c));
+            }
+            return result;
+        }
+
+        // Start with the rarest token, then keep only courses matching the others
+        int[] matches = null;
+        int[][] perToken = new int[queryTokens.size()][];
+        for (int i = 0; i < perToken.length; i++) perToken[i] = matchesOf(queryTokens.get(i));
+        Arrays.sort(perToken, Comparator.comparingInt(a -> a.length));
+        for (int[] m : perToken) {
+            matches = matches == null ? m : intersect(matches, m);
+            if (matches.length == 0) break;
+        }
+
+        for (int i = 0; i < matches.length && result.size() < limit; i++) {
+            result.add(catalog.codeAt(matches[i]));
+        }
+        return result;
+    }
+
+    // Sorted, distinct course indexes having a token that starts with 'prefix'
+    private int[] matchesOf(String prefix) {
+        int lo = 0, hi = tokens.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tokens[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        int end = lo;
+        while (end < tokens.length && tokens[end].startsWith(prefix)) end++;
+
+        int[] found = Arrays.copyOfRange(courses, lo, end);
+        Arrays.sort(found);
+        int n = 0;
+        for (int i = 0; i < found.length; i++) {
+            if (n == 0 || found[n - 1] != found[i]) found[n++] = found[i];
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * @return "CODE - Name" for display, or the code if it is not in the catalog.
+     */
+    public String describe(String code) {
+        CourseData cd = catalog.getCourse(code);
+        return cd == null ? code : cd.courseCode + " - " + cd.courseName;
+    }
+
+    public boolean contains(String code) {
+        return catalog.getCourse(code) != null;
+    }
+}
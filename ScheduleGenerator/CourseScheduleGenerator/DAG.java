@@ -7,18 +7,57 @@ import java.util.*;
  */
 public class DAG implements CourseGraphADT {
 
-    // Map representing the adjacency list: each course has a list of dependent courses.
-    private Map<String, List<String>> adjacencyList;
+    // Map representing the adjacency list: each course has a set of dependent courses
+    // (insertion ordered, so contains/remove are O(1) and the order stays stable).
+    private Map<String, Set<String>> adjacencyList;
 
-    // Map to keep track of how many prerequisites each course has
+    // Map to keep track of how many prerequisite groups each course has
     private Map<String, Integer> inDegree;
 
+    // Prerequisite groups of each course: the course needs one course of every group.
+    private Map<String, List<List<String>>> prerequisiteGroups;
+
+    // After copy(), courses whose dependents and groups this graph may change in place;
+    // the others are still shared with the copy. null if the graph was never copied.
+    private Set<String> owned;
+
     /**
      * Constructor: Initializes empty maps.
      */
     public DAG() {
         adjacencyList = new HashMap<>();
         inDegree = new HashMap<>();
+        prerequisiteGroups = new HashMap<>();
+    }
+
+    /**
+     * Copies the graph; edits to one do not affect the other.
+     *
+     * Only the course maps are copied: both graphs share the dependents and the
+     * prerequisite groups of every course, and a graph copies those of a course
+     * the first time it changes them. Patching a copy therefore costs the map
+     * copy plus the courses actually touched, not a copy of every edge.
+     *
+     * @return Copy of the graph.
+     */
+    public DAG copy() {
+        DAG copy = new DAG();
+        copy.adjacencyList.putAll(adjacencyList);
+        copy.inDegree.putAll(inDegree);
+        copy.prerequisiteGroups.putAll(prerequisiteGroups);
+        copy.owned = new HashSet<>();
+        owned = new HashSet<>();
+        return copy;
+    }
+
+    // Gives the course its own dependents and groups before they are changed,
+    // if they may still be shared with a copy of the graph
+    private void own(String course) {
+        if (owned == null || !adjacencyList.containsKey(course) || !owned.add(course)) return;
+        adjacencyList.put(course, new LinkedHashSet<>(adjacencyList.get(course)));
+        List<List<String>> groups = new ArrayList<>();
+        for (List<String> group : prerequisiteGroups.get(course)) groups.add(new ArrayList<>(group));
+        prerequisiteGroups.put(course, groups);
     }
 
     /**
@@ -30,8 +69,10 @@ public class DAG implements CourseGraphADT {
     public void addCourse(String course) {
         // Only added if it does not exist
         if (!adjacencyList.containsKey(course)) {
-            adjacencyList.put(course, new ArrayList<>());
+            adjacencyList.put(course, new LinkedHashSet<>());
             inDegree.put(course, 0); // No prerequisites at start-up
+            prerequisiteGroups.put(course, new ArrayList<>());
+            if (owned != null) owned.add(course);
         }
     }
 
@@ -48,18 +89,65 @@ public class DAG implements CourseGraphADT {
         addCourse(course);
         addCourse(prereq);
 
-        // We add a prereq edge to course
-        if (!adjacencyList.get(prereq).contains(course)) {
-            adjacencyList.get(prereq).add(course);
+        // We add a prereq edge to course (an OR-group may already have added it)
+        own(prereq);
+        adjacencyList.get(prereq).add(course);
+
+        // A single prerequisite is a group with one course. It is recorded even when
+        // the edge exists, so "(A or B);A" still requires A.
+        List<String> group = new ArrayList<>();
+        group.add(prereq);
+        addGroup(course, group);
+    }
+
+    // Records a group unless the course already has the same one
+    private void addGroup(String course, List<String> group) {
+        own(course);
+        List<List<String>> groups = prerequisiteGroups.get(course);
+        if (groups.contains(group)) return;
+        groups.add(group);
 
-            // We increase the prerequisite counter of 'course'.
-            inDegree.put(course, inDegree.get(course) + 1);
+        // We increase the prerequisite counter of 'course'.
+        inDegree.put(course, groups.size());
+    }
+
+    /**
+     * Adds an OR-group of prerequisites: the course can be taken once
+     * any one of the alternatives is completed.
+     * Each alternative gets an edge alternative → course.
+     *
+     * @param course Course that depends on the group.
+     * @param alternatives Courses that satisfy the group.
+     */
+    public void addPrerequisiteGroup(String course, Collection<String> alternatives) {
+        if (alternatives.isEmpty()) return;
+        if (alternatives.size() == 1) {
+            addPrerequisite(course, alternatives.iterator().next());
+            return;
+        }
+
+        addCourse(course);
+        List<String> group = new ArrayList<>();
+        for (String alt : alternatives) {
+            addCourse(alt);
+            own(alt);
+            adjacencyList.get(alt).add(course);
+            if (!group.contains(alt)) group.add(alt);
         }
+        // The whole group counts as one prerequisite
+        addGroup(course, group);
+    }
+
+    /**
+     * @return The prerequisite groups of the course (empty if it has none).
+     */
+    public List<List<String>> getPrerequisiteGroups(String course) {
+        return prerequisiteGroups.getOrDefault(course, new ArrayList<>());
     }
 
     /**
      * Checks if a student can take a course given a set of completed courses.
-     * For that, all direct prerequisites must be in completedCourses.
+     * For that, every prerequisite group must have a course in completedCourses.
      *
      * @param course Course to be checked.
      * @param completedCourses Courses that the student has already passed.
@@ -67,15 +155,16 @@ public class DAG implements CourseGraphADT {
      */
     @Override
     public boolean canTakeCourse(String course, Set<String> completedCourses) {
-        // We check all nodes that have ‘course’ as destination
-        for (Map.Entry<String, List<String>> entry : adjacencyList.entrySet()) {
-            String prereq = entry.getKey();
-            List<String> dependents = entry.getValue();
-
-            if (dependents.contains(course) && !completedCourses.contains(prereq)) {
-                // If a prerequisite is missing, you cannot take the course.
-                return false;
+        for (List<String> group : getPrerequisiteGroups(course)) {
+            boolean satisfied = false;
+            for (String prereq : group) {
+                if (completedCourses.contains(prereq)) {
+                    satisfied = true;
+                    break;
+                }
             }
+            // If a whole group is missing, you cannot take the course.
+            if (!satisfied) return false;
         }
         return true; // All prerequisites are complete
     }
@@ -83,6 +172,8 @@ public class DAG implements CourseGraphADT {
     /**
      * Perform a topological ordering of the graph.
      * We use Kahn's Algorithm to make sure we respect the prerequisites.
+     * A course is ready once every one of its groups has one course in the order,
+     * so OR-groups do not wait for all of their alternatives.
      *
      * @return Sorted list of courses in valid order.
      */
@@ -94,6 +185,9 @@ public class DAG implements CourseGraphADT {
         // We copy the inDegree map so as not to alter the original one.
         Map<String, Integer> inDegreeCopy = new HashMap<>(inDegree);
 
+        // Groups already satisfied for each course
+        Map<String, boolean[]> satisfiedGroups = new HashMap<>();
+
         // We add to the queue courses without prerequisites
         for (String course : inDegreeCopy.keySet()) {
             if (inDegreeCopy.get(course) == 0) {
@@ -107,11 +201,22 @@ public class DAG implements CourseGraphADT {
             order.add(current);                   // We add it to the final order
 
             for (String neighbor : adjacencyList.get(current)) {
-                // Reducing the inDegree of dependent courses
-                inDegreeCopy.put(neighbor, inDegreeCopy.get(neighbor) - 1);
+                List<List<String>> groups = prerequisiteGroups.get(neighbor);
+                boolean[] satisfied = satisfiedGroups.computeIfAbsent(neighbor, k -> new boolean[groups.size()]);
+
+                // Reducing the inDegree of dependent courses, once per group 'current' satisfies
+                int pending = inDegreeCopy.get(neighbor);
+                if (pending == 0) continue;
+                for (int g = 0; g < groups.size(); g++) {
+                    if (!satisfied[g] && groups.get(g).contains(current)) {
+                        satisfied[g] = true;
+                        pending--;
+                    }
+                }
+                inDegreeCopy.put(neighbor, pending);
 
                 // If you no longer have any pending prerequisites, we add you to the queue.
-                if (inDegreeCopy.get(neighbor) == 0) {
+                if (pending == 0) {
                     queue.offer(neighbor);
                 }
             }
@@ -119,7 +224,11 @@ public class DAG implements CourseGraphADT {
 
         // Check if there were cycles (which should not happen in a DAG).
         if (order.size() != adjacencyList.size()) {
-            throw new RuntimeException("The graph contains a cycle!");
+            List<String> lines = new ArrayList<>();
+            for (List<String> cycle : findCycles()) {
+                lines.add(String.join(" -> ", cycle));
+            }
+            throw new IllegalStateException("The graph contains a cycle: " + String.join("; ", lines));
         }
 
         return order;
@@ -128,53 +237,73 @@ public class DAG implements CourseGraphADT {
     public void removeCourse(String course) {
         if (!adjacencyList.containsKey(course)) return;
 
-        // We remove the course from the adjacency lists of other courses.
-        for (List<String> neighbors : adjacencyList.values()) {
-        neighbors.remove(course);
+        // Dependents lose 'course' from their groups (and their inDegree if a group empties)
+        for (String dependent : new ArrayList<>(adjacencyList.get(course))) {
+            removePrerequisite(dependent, course);
+        }
+
+        // Only the prerequisites of 'course' point to it, no need to walk every list
+        for (List<String> group : prerequisiteGroups.get(course)) {
+            for (String prereq : group) {
+                own(prereq);
+                Set<String> neighbors = adjacencyList.get(prereq);
+                if (neighbors != null) neighbors.remove(course);
+            }
         }
 
         // We remove the course from the network
         adjacencyList.remove(course);
         inDegree.remove(course);
-
-        // We also reduced inDegree from the courses that depended on this
-        for (String key : inDegree.keySet()) {
-            int count = 0;
-            for (String neighbor : adjacencyList.getOrDefault(key, new ArrayList<>())) {
-                if (neighbor.equals(course)) count++;
-            }
-            inDegree.put(key, inDegree.get(key) - count);
-        }
+        prerequisiteGroups.remove(course);
     }
 
     public void removePrerequisite(String course, String prereq) {
         if (adjacencyList.containsKey(prereq) && adjacencyList.get(prereq).contains(course)) {
+            own(prereq);
+            own(course);
             adjacencyList.get(prereq).remove(course);
-            inDegree.put(course, inDegree.get(course) - 1);
+            // A group only disappears when its last alternative is removed
+            Iterator<List<String>> it = prerequisiteGroups.get(course).iterator();
+            while (it.hasNext()) {
+                List<String> group = it.next();
+                if (group.remove(prereq) && group.isEmpty()) {
+                    it.remove();
+                }
+            }
+            inDegree.put(course, prerequisiteGroups.get(course).size());
         }
     }
 
     public Set<String> getAllPrerequisites(String course) {
         Set<String> visited = new HashSet<>();
-        // DFS recursion
-        getAllPrerequisitesHelper(course, visited);
+        // DFS with an explicit stack, walking the prerequisite groups backwards
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(course);
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            for (List<String> group : getPrerequisiteGroups(current)) {
+                for (String prereq : group) {
+                    if (visited.add(prereq)) stack.push(prereq);
+                }
+            }
+        }
         return visited;
     }
 
-    private void getAllPrerequisitesHelper(String course, Set<String> visited) {
-        for (Map.Entry<String, List<String>> entry : adjacencyList.entrySet()) {
-            String prereq = entry.getKey();
-            if (entry.getValue().contains(course) && !visited.contains(prereq)) {
-                visited.add(prereq);
-                getAllPrerequisitesHelper(prereq, visited);
-            }
-        }
-    }   
+    /**
+     * Finds the cycles of the graph, one per strongly connected component
+     * (iterative Tarjan, see SccFinder).
+     *
+     * @return Each cycle as a list of courses, first course repeated at the end.
+     */
+    public List<List<String>> findCycles() {
+        return cyclesReachableFrom(adjacencyList.keySet());
+    }
 
 
     public List<String> getNextCourses(String course) {
         // Courses that directly require this course as a prerequisite
-        return adjacencyList.getOrDefault(course, new ArrayList<>());
+        return new ArrayList<>(adjacencyList.getOrDefault(course, Collections.emptySet()));
     }
 
 
@@ -188,19 +317,202 @@ public class DAG implements CourseGraphADT {
     }
     
     public boolean wouldCreateCycle(String course, String prereq) {
-        Set<String> visited = new HashSet<>();
-        return hasPath(prereq, course, visited);
+        // The new edge prereq → course closes a cycle if course already reaches prereq
+        return hasPath(course, prereq);
     }
     
-    private boolean hasPath(String start, String target, Set<String> visited) {
-        if (start.equals(target)) return true;
-        if (!adjacencyList.containsKey(start) || visited.contains(start)) return false;
-    
-        visited.add(start);
-        for (String neighbor : adjacencyList.get(start)) {
-            if (hasPath(neighbor, target, visited)) return true;
+    private boolean hasPath(String start, String target) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            if (current.equals(target)) return true;
+            if (!adjacencyList.containsKey(current) || !visited.add(current)) continue;
+            for (String neighbor : adjacencyList.get(current)) {
+                stack.push(neighbor);
+            }
         }
         return false;
     }
 
+    /**
+     * Starts a batch of edits. Nothing changes until commit() is called.
+     *
+     * @return Empty batch bound to this graph.
+     */
+    public Batch beginBatch() {
+        return new Batch();
+    }
+
+    /**
+     * A group of edits applied together: the cost of commit() is proportional to
+     * the courses and edges touched, and acyclicity is only checked once, on the
+     * part of the graph reachable from the new edges. If the edits create a cycle
+     * the graph is restored to its previous state and commit() throws.
+     */
+    public class Batch {
+        private final List<Runnable> operations = new ArrayList<>();
+        private final Map<String, NodeState> saved = new HashMap<>();
+        private final Set<String> newEdgeHeads = new LinkedHashSet<>();
+
+        public Batch addCourse(String course) {
+            operations.add(() -> {
+                save(course);
+                DAG.this.addCourse(course);
+            });
+            return this;
+        }
+
+        public Batch removeCourse(String course) {
+            operations.add(() -> {
+                if (!adjacencyList.containsKey(course)) return;
+                save(course);
+                for (String dependent : adjacencyList.get(course)) save(dependent);
+                for (List<String> group : prerequisiteGroups.get(course)) {
+                    for (String prereq : group) save(prereq);
+                }
+                DAG.this.removeCourse(course);
+            });
+            return this;
+        }
+
+        public Batch addPrerequisite(String course, String prereq) {
+            operations.add(() -> {
+                save(course);
+                save(prereq);
+                DAG.this.addPrerequisite(course, prereq);
+                newEdgeHeads.add(course);
+            });
+            return this;
+        }
+
+        public Batch addPrerequisiteGroup(String course, Collection<String> alternatives) {
+            List<String> copy = new ArrayList<>(alternatives);
+            operations.add(() -> {
+                save(course);
+                for (String alt : copy) save(alt);
+                DAG.this.addPrerequisiteGroup(course, copy);
+                newEdgeHeads.add(course);
+            });
+            return this;
+        }
+
+        public Batch removePrerequisite(String course, String prereq) {
+            operations.add(() -> {
+                save(course);
+                save(prereq);
+                DAG.this.removePrerequisite(course, prereq);
+            });
+            return this;
+        }
+
+        /**
+         * Applies every edit in order.
+         *
+         * @throws IllegalStateException if the edits create a cycle; the graph is then left unchanged.
+         */
+        public void commit() {
+            try {
+                for (Runnable op : operations) op.run();
+
+                List<List<String>> cycles = cyclesReachableFrom(newEdgeHeads);
+                if (!cycles.isEmpty()) {
+                    rollback();
+                    List<String> lines = new ArrayList<>();
+                    for (List<String> cycle : cycles) lines.add(String.join(" -> ", cycle));
+                    throw new IllegalStateException("The batch would create a cycle: " + String.join("; ", lines));
+                }
+            } catch (RuntimeException e) {
+                if (!saved.isEmpty()) rollback();
+                throw e;
+            } finally {
+                operations.clear();
+                saved.clear();
+                newEdgeHeads.clear();
+            }
+        }
+
+        // Remembers the state of a course before the batch first touches it
+        private void save(String course) {
+            if (saved.containsKey(course)) return;
+            NodeState state = new NodeState();
+            state.existed = adjacencyList.containsKey(course);
+            if (state.existed) {
+                state.dependents = new LinkedHashSet<>(adjacencyList.get(course));
+                state.groups = new ArrayList<>();
+                for (List<String> group : prerequisiteGroups.get(course)) {
+                    state.groups.add(new ArrayList<>(group));
+                }
+            }
+            saved.put(course, state);
+        }
+
+        private void rollback() {
+            for (Map.Entry<String, NodeState> entry : saved.entrySet()) {
+                String course = entry.getKey();
+                NodeState state = entry.getValue();
+                if (!state.existed) {
+                    adjacencyList.remove(course);
+                    inDegree.remove(course);
+                    prerequisiteGroups.remove(course);
+                } else {
+                    adjacencyList.put(course, state.dependents);
+                    prerequisiteGroups.put(course, state.groups);
+                    inDegree.put(course, state.groups.size());
+                    if (owned != null) owned.add(course);
+                }
+            }
+            saved.clear();
+        }
+    }
+
+    private static class NodeState {
+        boolean existed;
+        Set<String> dependents;
+        List<List<String>> groups;
+    }
+
+    /**
+     * Finds cycles in the part of the graph reachable from the given courses.
+     * Any cycle through a new edge prereq → course is reachable from 'course'.
+     */
+    private List<List<String>> cyclesReachableFrom(Collection<String> starts) {
+        // Collect the reachable nodes
+        List<String> nodes = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        for (String start : starts) {
+            if (adjacencyList.containsKey(start) && !ids.containsKey(start)) {
+                ids.put(start, nodes.size());
+                nodes.add(start);
+            }
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (String neighbor : adjacencyList.get(nodes.get(i))) {
+                if (!ids.containsKey(neighbor)) {
+                    ids.put(neighbor, nodes.size());
+                    nodes.add(neighbor);
+                }
+            }
+        }
+
+        int[] offsets = new int[nodes.size() + 1];
+        for (int i = 0; i < nodes.size(); i++) {
+            offsets[i + 1] = offsets[i] + adjacencyList.get(nodes.get(i)).size();
+        }
+        int[] targets = new int[offsets[nodes.size()]];
+        int e = 0;
+        for (String node : nodes) {
+            for (String neighbor : adjacencyList.get(node)) targets[e++] = ids.get(neighbor);
+        }
+
+        List<List<String>> cycles = new ArrayList<>();
+        for (int[] component : SccFinder.cyclicComponents(nodes.size(), offsets, targets)) {
+            List<String> cycle = new ArrayList<>();
+            for (int id : SccFinder.cycleIn(component, offsets, targets)) cycle.add(nodes.get(id));
+            cycles.add(cycle);
+        }
+        return cycles;
+    }
+
 }
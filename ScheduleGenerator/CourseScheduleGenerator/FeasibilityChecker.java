@@ -0,0 +1,222 @@
+import java.util.*;
+
+/**
+ * Fast feasibility pre-check run before planning.
+ *
+ * Propagates, for every course, the earliest term it can be taken (prerequisite
+ * chain depth plus seasonal availability and preferences) and, for every
+ * required course and the courses it strictly needs, the latest term it can be
+ * taken so the required courses still fit in the plan. A required course whose
+ * earliest term is after its latest term makes the request infeasible.
+ *
+ * Terms are numbered from 0 and their seasons come from the TermCalendar.
+ * The prerequisite structure is built once per catalog; each check is linear
+ * in the number of courses and prerequisite references.
+ */
+public class FeasibilityChecker {
+    private final CourseCatalog catalog;
+
+    // Edges prereq → (course, global group id), CSR by prereq
+    private final int[] depOffsets;
+    private final int[] depCourse;
+    private final int[] depGroup;
+    private final int[] groupCount;     // number of groups of each course
+
+    // Prerequisites that are required on their own (single-course groups), CSR by course
+    private final int[] andOffsets;
+    private final int[] andPrereqs;
+
+    private final int totalGroups;
+
+    public FeasibilityChecker(CourseCatalog catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+
+        depOffsets = new int[n + 1];
+        andOffsets = new int[n + 1];
+        groupCount = new int[n];
+        int groups = 0;
+        for (int c = 0; c < n; c++) {
+            for (List<String> group : catalog.getCourseAt(c).prerequisiteExpr.getGroups()) {
+                groups++;
+                groupCount[c]++;
+                for (String code : group) {
+                    int p = catalog.indexOf(code);
+                    if (p >= 0) depOffsets[p + 1]++;
+                }
+                if (group.size() == 1 && catalog.indexOf(group.get(0)) >= 0) andOffsets[c + 1]++;
+            }
+        }
+        totalGroups = groups;
+        for (int i = 0; i < n; i++) {
+            depOffsets[i + 1] += depOffsets[i];
+            andOffsets[i + 1] += andOffsets[i];
+        }
+
+        depCourse = new int[depOffsets[n]];
+        depGroup = new int[depOffsets[n]];
+        andPrereqs = new int[andOffsets[n]];
+        int[] fill = Arrays.copyOf(depOffsets, n);
+        int gid = 0;
+        for (int c = 0; c < n; c++) {
+            int a = andOffsets[c];
+            for (List<String> group : catalog.getCourseAt(c).prerequisiteExpr.getGroups()) {
+                for (String code : group) {
+                    int p = catalog.indexOf(code);
+                    if (p < 0) continue;
+                    depCourse[fill[p]] = c;
+                    depGroup[fill[p]] = gid;
+                    fill[p]++;
+                }
+                if (group.size() == 1 && catalog.indexOf(group.get(0)) >= 0) {
+                    andPrereqs[a++] = catalog.indexOf(group.get(0));
+                }
+                gid++;
+            }
+        }
+    }
+
+    /**
+     * Computes the feasible term window of every course.
+     *
+     * @param requiredCourses    Courses that must be taken within the plan.
+     * @param alreadyTaken       Courses completed before the first remaining term.
+     * @param semestersCompleted Terms already done (first term that can still be planned).
+     * @param calendar           Terms of the plan.
+     * @param preferredSeasons   Courses that may only be taken in the given season.
+     * @return Bounds and problems; never null.
+     */
+    public FeasibilityReport check(Set<String> requiredCourses, Set<String> alreadyTaken,
+                                   int semestersCompleted, TermCalendar calendar,
+                                   Map<String, Season> preferredSeasons) {
+        int n = catalog.size();
+        int totalTerms = calendar.size();
+        boolean[] taken = flags(alreadyTaken);
+        Season[] onlyIn = new Season[n];
+        preferredSeasons.forEach((code, season) -> {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) onlyIn[idx] = season;
+        });
+
+        // ── Earliest terms ─────────────────────────
+        // Buckets by term (-1 .. totalTerms), popped in increasing order like Dijkstra:
+        // a group is satisfied by its first popped course, which is its earliest one.
+        int[] earliest = new int[n];
+        Arrays.fill(earliest, FeasibilityReport.NEVER);
+        int[] groupsLeft = Arrays.copyOf(groupCount, n);
+        int[] needsAfter = new int[n];
+        Arrays.fill(needsAfter, -1);
+        boolean[] groupDone = new boolean[totalGroups];
+
+        int[][] buckets = new int[totalTerms + 2][];
+        int[] bucketSize = new int[totalTerms + 2];
+        for (int c = 0; c < n; c++) {
+            if (taken[c]) {
+                earliest[c] = -1;
+            } else if (groupCount[c] == 0) {
+                earliest[c] = firstTerm(c, semestersCompleted, calendar, onlyIn);
+            }
+            if (earliest[c] != FeasibilityReport.NEVER) push(buckets, bucketSize, earliest[c] + 1, c);
+        }
+
+        for (int b = 0; b < buckets.length; b++) {
+            for (int i = 0; i < bucketSize[b]; i++) {
+                int p = buckets[b][i];
+                for (int e = depOffsets[p]; e < depOffsets[p + 1]; e++) {
+                    int g = depGroup[e];
+                    if (groupDone[g]) continue;
+                    groupDone[g] = true;
+                    int c = depCourse[e];
+                    needsAfter[c] = Math.max(needsAfter[c], earliest[p]);
+                    if (--groupsLeft[c] == 0 && !taken[c]) {
+                        int from = Math.max(semestersCompleted, needsAfter[c] + 1);
+                        earliest[c] = firstTerm(c, from, calendar, onlyIn);
+                        if (earliest[c] != FeasibilityReport.NEVER) push(buckets, bucketSize, earliest[c] + 1, c);
+                    }
+                }
+            }
+        }
+
+        // ── Latest terms ───────────────────────────
+        // Walk back from the required courses through the prerequisites they cannot do without
+        int[] latest = new int[n];
+        Arrays.fill(latest, totalTerms - 1);
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        for (String code : requiredCourses) {
+            int c = catalog.indexOf(code);
+            if (c < 0 || taken[c]) continue;
+            latest[c] = lastTerm(c, totalTerms - 1, semestersCompleted, calendar, onlyIn);
+            work.add(c);
+        }
+        while (!work.isEmpty()) {
+            int c = work.poll();
+            for (int a = andOffsets[c]; a < andOffsets[c + 1]; a++) {
+                int p = andPrereqs[a];
+                if (taken[p]) continue;
+                int bound = lastTerm(p, latest[c] - 1, semestersCompleted, calendar, onlyIn);
+                if (bound < latest[p]) {
+                    latest[p] = bound;
+                    work.add(p);
+                }
+            }
+        }
+
+        // ── Problems ───────────────────────────────
+        FeasibilityReport report = new FeasibilityReport(catalog, earliest, latest);
+        for (String code : requiredCourses) {
+            int c = catalog.indexOf(code);
+            if (c < 0) {
+                report.addProblem(code + " is not in the catalog");
+            } else if (taken[c]) {
+                continue;
+            } else if (earliest[c] == FeasibilityReport.NEVER) {
+                report.addProblem(code + " can never be taken (not offered, or its prerequisites can never be completed)");
+            } else if (earliest[c] >= totalTerms) {
+                report.addProblem(code + " cannot be reached within the remaining terms: its prerequisite chain is too long");
+            } else if (earliest[c] > latest[c]) {
+                report.addProblem(code + " can start " + calendar.label(earliest[c])
+                    + " at the earliest but must be taken by " + calendar.label(latest[c])
+                    + " for the required courses that depend on it");
+            }
+        }
+        return report;
+    }
+
+    // First term >= from in which the course is offered and allowed by the preferences.
+    // Returns totalTerms ("too late") if that is past the plan, NEVER if there is no such season.
+    private int firstTerm(int c, int from, TermCalendar calendar, Season[] onlyIn) {
+        for (int t = from; t < from + calendar.termsPerYear(); t++) {
+            if (allowed(c, t, calendar, onlyIn)) return Math.min(t, calendar.size());
+        }
+        return FeasibilityReport.NEVER;
+    }
+
+    // Last term <= to (and >= first) in which the course is offered, or first - 1 if none.
+    // first - 1 is a floor, so the propagation stops even around a prerequisite cycle.
+    private int lastTerm(int c, int to, int first, TermCalendar calendar, Season[] onlyIn) {
+        for (int t = to; t >= first && t > to - calendar.termsPerYear(); t--) {
+            if (allowed(c, t, calendar, onlyIn)) return t;
+        }
+        return first - 1;
+    }
+
+    private boolean allowed(int c, int term, TermCalendar calendar, Season[] onlyIn) {
+        Season season = calendar.seasonOf(term);
+        return catalog.getCourseAt(c).isOfferedIn(season) && (onlyIn[c] == null || onlyIn[c] == season);
+    }
+
+    private boolean[] flags(Set<String> codes) {
+        boolean[] result = new boolean[catalog.size()];
+        for (String code : codes) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) result[idx] = true;
+        }
+        return result;
+    }
+
+    private static void push(int[][] buckets, int[] sizes, int b, int c) {
+        if (buckets[b] == null) buckets[b] = new int[8];
+        if (sizes[b] == buckets[b].length) buckets[b] = Arrays.copyOf(buckets[b], sizes[b] * 2);
+        buckets[b][sizes[b]++] = c;
+    }
+}
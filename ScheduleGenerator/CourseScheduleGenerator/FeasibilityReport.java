@@ -0,0 +1,62 @@
+import java.util.*;
+
+/**
+ * Result of FeasibilityChecker: earliest and latest feasible term of every
+ * course (0 = first term of the plan) and the problems found.
+ */
+public class FeasibilityReport {
+    /** Marker for a course that can never be taken. */
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    private final CourseCatalog catalog;
+    private final int[] earliest;   // first term the course can be taken, -1 if already taken
+    private final int[] latest;     // last term it can be taken and still meet the required courses
+    private final List<String> problems = new ArrayList<>();
+
+    FeasibilityReport(CourseCatalog catalog, int[] earliest, int[] latest) {
+        this.catalog = catalog;
+        this.earliest = earliest;
+        this.latest = latest;
+    }
+
+    void addProblem(String problem) {
+        problems.add(problem);
+    }
+
+    public boolean isFeasible() {
+        return problems.isEmpty();
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * @return First feasible term of the course, -1 if already taken, NEVER if it can never be taken.
+     */
+    public int earliest(String code) {
+        int idx = catalog.indexOf(code);
+        return idx < 0 ? NEVER : earliest[idx];
+    }
+
+    /**
+     * @return Last feasible term of the course (the last term of the plan if nothing forces it earlier).
+     */
+    public int latest(String code) {
+        int idx = catalog.indexOf(code);
+        return idx < 0 ? -1 : latest[idx];
+    }
+
+    int earliestOf(int courseIndex) {
+        return earliest[courseIndex];
+    }
+
+    int latestOf(int courseIndex) {
+        return latest[courseIndex];
+    }
+
+    @Override
+    public String toString() {
+        return isFeasible() ? "Feasible" : "Infeasible: " + String.join("; ", problems);
+    }
+}
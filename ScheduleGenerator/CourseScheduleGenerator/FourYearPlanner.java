@@ -3,19 +3,73 @@ import java.util.*;
 
 public class FourYearPlanner {
     private CourseCatalog catalog;
+    private TermCalendar calendar;
+    private FeasibilityChecker feasibilityChecker;   // Built on first use
 
     public FourYearPlanner(CourseCatalog catalog) {
+        this(catalog, TermCalendar.FOUR_YEAR_SEMESTERS);
+    }
+
+    public FourYearPlanner(CourseCatalog catalog, TermCalendar calendar) {
         this.catalog = catalog;
+        this.calendar = calendar;
+    }
+
+    public TermCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Checks before planning that the given courses can all be completed in the
+     * semesters left, from prerequisite chains, seasonal offerings and preferences.
+     *
+     * @return Earliest/latest semester index of every course and the problems found.
+     */
+    public FeasibilityReport checkFeasibility(Set<String> requiredCourses,
+                                              Set<String> preferFall, Set<String> preferSpring,
+                                              Set<String> alreadyTaken, int semestersCompleted) {
+        return checkFeasibility(requiredCourses, toSeasons(preferFall, preferSpring),
+                alreadyTaken, semestersCompleted);
+    }
+
+    /**
+     * Same as above, with a preferred season per course.
+     */
+    public FeasibilityReport checkFeasibility(Set<String> requiredCourses, Map<String, Season> preferredSeasons,
+                                              Set<String> alreadyTaken, int semestersCompleted) {
+        return feasibilityChecker().check(requiredCourses, alreadyTaken,
+                semestersCompleted, calendar, preferredSeasons);
+    }
+
+    private synchronized FeasibilityChecker feasibilityChecker() {
+        if (feasibilityChecker == null) feasibilityChecker = new FeasibilityChecker(catalog);
+        return feasibilityChecker;
     }
 
+    /**
+     * @return Term label → planned courses, every term of the calendar in order.
+     */
     public Map<String, List<CourseData>> generatePlan(
             Set<String> preferFall, Set<String> preferSpring,
             Set<Integer> semestersWithFiveCourses,
             Set<String> alreadyTaken,
             int semestersCompleted) {
 
-        Map<String, List<CourseData>> semesters = new LinkedHashMap<>();
-        String[] semesterLabels = {"Fall 1", "Spring 1", "Fall 2", "Spring 2", "Fall 3", "Spring 3", "Fall 4", "Spring 4"};
+        return generateSchedulePlan(toSeasons(preferFall, preferSpring),
+                semestersWithFiveCourses, alreadyTaken, semestersCompleted).toLabelMap();
+    }
+
+    /**
+     * Same as generatePlan, with a preferred season per course (any season of the
+     * calendar), returning the plan as arrays indexed by term.
+     */
+    public SchedulePlan generateSchedulePlan(
+            Map<String, Season> preferredSeasons,
+            Set<Integer> semestersWithFiveCourses,
+            Set<String> alreadyTaken,
+            int semestersCompleted) {
+
+        SchedulePlan plan = new SchedulePlan(catalog, calendar);
 
         Map<String, CourseData> allCourses = new HashMap<>();
         for (CourseData course : catalog.getAllCourses().values()) {
@@ -23,19 +77,35 @@ public class FourYearPlanner {
         }
 
         Set<String> taken = new HashSet<>(alreadyTaken);
+        long[] takenBits = CourseBits.create(catalog.size());
+        for (String code : alreadyTaken) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) CourseBits.set(takenBits, idx);
+        }
+
+        // inDegree counts the prerequisite groups that are still unsatisfied,
+        // so an OR-group is released by the first of its alternatives.
         Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, boolean[]> satisfiedGroups = new HashMap<>();
         Map<String, List<String>> prereqToCourses = new HashMap<>();
 
         for (CourseData course : allCourses.values()) {
             String code = course.courseCode;
-            List<String> prereqs = course.prerequisites != null ? course.prerequisites : new ArrayList<>();
+            List<List<String>> groups = course.prerequisiteExpr.getGroups();
+            boolean[] satisfied = new boolean[groups.size()];
             int count = 0;
-            for (String pre : prereqs) {
-                pre = pre.trim();
-                prereqToCourses.computeIfAbsent(pre, k -> new ArrayList<>()).add(code);
-                if (!taken.contains(pre)) count++;
+            for (int g = 0; g < groups.size(); g++) {
+                for (String pre : groups.get(g)) {
+                    List<String> dependents = prereqToCourses.computeIfAbsent(pre, k -> new ArrayList<>());
+                    if (dependents.isEmpty() || !dependents.get(dependents.size() - 1).equals(code)) {
+                        dependents.add(code);
+                    }
+                    if (taken.contains(pre)) satisfied[g] = true;
+                }
+                if (!satisfied[g]) count++;
             }
             inDegree.put(code, count);
+            satisfiedGroups.put(code, satisfied);
         }
 
         List<String> ready = new ArrayList<>();
@@ -45,31 +115,38 @@ public class FourYearPlanner {
             }
         }
 
+        // Latest semester of every course if the whole catalog is to fit: courses with
+        // long chains of dependents have the earliest deadlines and are placed first.
+        FeasibilityReport bounds = checkFeasibility(allCourses.keySet(), preferredSeasons,
+                alreadyTaken, semestersCompleted);
+        Comparator<String> byDeadline = Comparator.comparingInt(code -> bounds.latestOf(allCourses.get(code).index));
+
         int semesterIndex = semestersCompleted;
 
-        while (!ready.isEmpty() && semesterIndex < 8) {
+        while (!ready.isEmpty() && semesterIndex < calendar.size()) {
             int limit = semestersWithFiveCourses.contains(semesterIndex) ? 5 : 4;
-            String semesterLabel = semesterLabels[semesterIndex];
-            List<CourseData> semesterCourses = semesters.computeIfAbsent(semesterLabel, k -> new ArrayList<>());
+            Season season = calendar.seasonOf(semesterIndex);
 
             boolean progress = false;
 
             int csCountThisSemester = 0;
-            int maxCSThisSemester = (semesterIndex == 0 || semesterIndex == 1) ? 1 : 2;
+            int maxCSThisSemester = maxCSCourses(calendar, semesterIndex);
 
             List<String> readyCS = new ArrayList<>();
             List<String> readyOthers = new ArrayList<>();
             for (String code : ready) {
-                if (code.startsWith("CS ")) readyCS.add(code);
+                if (isCSCourse(code)) readyCS.add(code);
                 else readyOthers.add(code);
             }
             ready.clear();
+            readyCS.sort(byDeadline);
+            readyOthers.sort(byDeadline);
 
             List<String> notAssignedCS = new ArrayList<>();
             List<String> notAssignedOthers = new ArrayList<>();
-            Set<String> takenBeforeSemester = new HashSet<>(taken);
+            long[] takenBeforeSemester = takenBits.clone();
 
-            while ((readyCS.size() > 0 || readyOthers.size() > 0) && semesterCourses.size() < limit) {
+            while ((readyCS.size() > 0 || readyOthers.size() > 0) && plan.count(semesterIndex) < limit) {
                 String code;
                 boolean takeCS = false;
 
@@ -86,23 +163,16 @@ public class FourYearPlanner {
                 CourseData course = allCourses.get(code);
                 if (course == null) continue;
 
-                boolean offered = (semesterIndex % 2 == 0 && course.offeredFall) || (semesterIndex % 2 == 1 && course.offeredSpring);
-                boolean matchesPref =
-                        (preferFall.contains(code) && semesterIndex % 2 == 0) ||
-                        (preferSpring.contains(code) && semesterIndex % 2 == 1) ||
-                        (!preferFall.contains(code) && !preferSpring.contains(code));
+                boolean offered = course.isOfferedIn(season);
+                Season preferred = preferredSeasons.get(code);
+                boolean matchesPref = preferred == null || preferred == season;
 
-                boolean prereqsCompleted = true;
-                for (String pre : course.prerequisites) {
-                    if (!takenBeforeSemester.contains(pre)) {
-                        prereqsCompleted = false;
-                        break;
-                    }
-                }
+                boolean prereqsCompleted = course.prerequisiteExpr.isSatisfiedBy(takenBeforeSemester);
 
                 if (offered && matchesPref && prereqsCompleted) {
-                    semesterCourses.add(course);
+                    plan.add(semesterIndex, course.index);
                     taken.add(code);
+                    CourseBits.set(takenBits, course.index);
                     progress = true;
 
                     if (takeCS) csCountThisSemester++;
@@ -111,10 +181,18 @@ public class FourYearPlanner {
                     for (String dependent : dependents) {
                         int deg = inDegree.getOrDefault(dependent, 0);
                         if (deg > 0) {
-                            deg--;
+                            CourseData dep = allCourses.get(dependent);
+                            List<List<String>> groups = dep.prerequisiteExpr.getGroups();
+                            boolean[] satisfied = satisfiedGroups.get(dependent);
+                            for (int g = 0; g < groups.size(); g++) {
+                                if (!satisfied[g] && groups.get(g).contains(code)) {
+                                    satisfied[g] = true;
+                                    deg--;
+                                }
+                            }
                             inDegree.put(dependent, deg);
                             if (deg == 0 && !taken.contains(dependent)) {
-                                if (dependent.startsWith("CS ")) readyCS.add(dependent);
+                                if (isCSCourse(dependent)) readyCS.add(dependent);
                                 else readyOthers.add(dependent);
                             }
                         }
@@ -133,10 +211,6 @@ public class FourYearPlanner {
             semesterIndex++;
         }
 
-        for (String label : semesterLabels) {
-            semesters.putIfAbsent(label, new ArrayList<>());
-        }
-
         // 🔢 Graduation requirements: division, writing intensive, DPE
         int div1Needed = 3;
         int div2Needed = 3;
@@ -144,8 +218,9 @@ public class FourYearPlanner {
         int dpeNeeded = 1;
 
         // 🧮 Count already taken or planned courses
-        for (List<CourseData> courseList : semesters.values()) {
-            for (CourseData course : courseList) {
+        for (int t = 0; t < plan.termCount(); t++) {
+            for (int i = 0; i < plan.count(t); i++) {
+                CourseData course = catalog.getCourseAt(plan.courseAt(t, i));
                 if (course.division == 1) div1Needed--;
                 else if (course.division == 2) div2Needed--;
                 if (course.isWritingIntensive) wiNeeded--;
@@ -163,22 +238,17 @@ public class FourYearPlanner {
         }
 
         // ➕ Fill empty slots with division, WI and DPE courses
-        for (int i = semestersCompleted; i < semesterLabels.length; i++) {
-            String semesterLabel = semesterLabels[i];
-            List<CourseData> semesterCourses = semesters.get(semesterLabel);
-            if (semesterCourses == null) continue;
-
+        for (int i = semestersCompleted; i < calendar.size(); i++) {
             int limit = semestersWithFiveCourses.contains(i) ? 5 : 4;
 
-            while (semesterCourses.size() < limit && (div1Needed > 0 || div2Needed > 0 || wiNeeded > 0 || dpeNeeded > 0)) {
+            while (plan.count(i) < limit && (div1Needed > 0 || div2Needed > 0 || wiNeeded > 0 || dpeNeeded > 0)) {
                 CourseData filler = null;
 
                 for (CourseData candidate : allCourses.values()) {
                     if (taken.contains(candidate.courseCode)) continue;
-                    if (semesterCourses.contains(candidate)) continue;
+                    if (plan.contains(i, candidate.index)) continue;
 
-                    boolean offered = (i % 2 == 0 && candidate.offeredFall) || (i % 2 == 1 && candidate.offeredSpring);
-                    if (!offered) continue;
+                    if (!calendar.isOffered(candidate, i)) continue;
 
                     if (div1Needed > 0 && candidate.division == 1) {
                         filler = candidate;
@@ -203,7 +273,7 @@ public class FourYearPlanner {
                 }
 
                 if (filler != null) {
-                    semesterCourses.add(filler);
+                    plan.add(i, filler.index);
                     taken.add(filler.courseCode);
                 } else {
                     break;
@@ -211,7 +281,28 @@ public class FourYearPlanner {
             }
         }
 
-        return semesters;
+        return plan;
+    }
+
+    /**
+     * @return Most CS courses planned in a term: one in the first year, two afterwards.
+     */
+    static int maxCSCourses(TermCalendar calendar, int term) {
+        return calendar.yearOf(term) == 0 ? 1 : 2;
+    }
+
+    static boolean isCSCourse(String code) {
+        return code.startsWith("CS ");
+    }
+
+    private static Map<String, Season> toSeasons(Set<String> preferFall, Set<String> preferSpring) {
+        Map<String, Season> result = new HashMap<>();
+        for (String code : preferFall) result.put(code, Season.FALL);
+        for (String code : preferSpring) {
+            // A course preferred in both seasons is not restricted at all
+            if (result.remove(code) == null) result.put(code, Season.SPRING);
+        }
+        return result;
     }
 }
 
@@ -0,0 +1,199 @@
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Failure-impact analysis: for every course of a plan, estimates how many
+ * semesters graduation slips if the student fails (or skips) that course.
+ *
+ * The dependents of every course are computed once per catalog and shared by
+ * all what-ifs. Each what-if only re-places the failed course and the planned
+ * courses that depend on it (directly or not); every other course keeps its
+ * term. The what-ifs are independent, so they run in parallel.
+ */
+public class ImpactAnalyzer {
+    private final CourseCatalog catalog;
+    private final TermCalendar calendar;
+
+    // Dependents of every course in CSR form: dependents[depOffsets[c] .. depOffsets[c+1])
+    private final int[] depOffsets;
+    private final int[] dependents;
+
+    public ImpactAnalyzer(CourseCatalog catalog) {
+        this(catalog, TermCalendar.FOUR_YEAR_SEMESTERS);
+    }
+
+    /**
+     * @param calendar Calendar of the analyzed plans; delayed courses may go past its last term.
+     */
+    public ImpactAnalyzer(CourseCatalog catalog, TermCalendar calendar) {
+        this.catalog = catalog;
+        this.calendar = calendar;
+        int n = catalog.size();
+
+        depOffsets = new int[n + 1];
+        for (int c = 0; c < n; c++) {
+            for (String code : catalog.getCourseAt(c).prerequisites) {
+                int p = catalog.indexOf(code);
+                if (p >= 0) depOffsets[p + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) depOffsets[i + 1] += depOffsets[i];
+
+        dependents = new int[depOffsets[n]];
+        int[] fill = Arrays.copyOf(depOffsets, n);
+        for (int c = 0; c < n; c++) {
+            for (String code : catalog.getCourseAt(c).prerequisites) {
+                int p = catalog.indexOf(code);
+                if (p >= 0) dependents[fill[p]++] = c;
+            }
+        }
+    }
+
+    /**
+     * Evaluates every single-course failure of a plan.
+     *
+     * @param plan                     Plan from FourYearPlanner (term label → courses, in term order).
+     * @param semestersWithFiveCourses Term indexes allowed to hold 5 courses (others hold 4).
+     * @param alreadyTaken             Courses completed before the plan.
+     * @return One CourseImpact per planned course, most load-bearing first.
+     */
+    public List<CourseImpact> analyze(Map<String, List<CourseData>> plan,
+                                      Set<Integer> semestersWithFiveCourses,
+                                      Set<String> alreadyTaken) {
+        List<String> labels = new ArrayList<>(plan.keySet());
+        int n = catalog.size();
+
+        int[] termOf = new int[n];
+        Arrays.fill(termOf, -1);
+        int[] load = new int[labels.size()];
+        List<Integer> planned = new ArrayList<>();
+        int graduation = -1;
+        for (int t = 0; t < labels.size(); t++) {
+            for (CourseData cd : plan.get(labels.get(t))) {
+                termOf[cd.index] = t;
+                load[t]++;
+                planned.add(cd.index);
+                graduation = Math.max(graduation, t);
+            }
+        }
+
+        long[] taken = CourseBits.create(n);
+        for (String code : alreadyTaken) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) CourseBits.set(taken, idx);
+        }
+
+        int oldGraduation = graduation;
+        return planned.parallelStream()
+            .map(c -> whatIf(c, labels, termOf, load, planned, oldGraduation, taken, semestersWithFiveCourses))
+            .sorted(CourseImpact.BY_SENSITIVITY)
+            .collect(Collectors.toList());
+    }
+
+    private CourseImpact whatIf(int failed, List<String> labels, int[] termOf, int[] baseLoad,
+                                List<Integer> planned, int oldGraduation, long[] taken,
+                                Set<Integer> fiveCourseTerms) {
+        // Planned courses that depend on the failed one
+        List<Integer> affected = new ArrayList<>();
+        Set<Integer> inAffected = new HashSet<>();
+        affected.add(failed);
+        inAffected.add(failed);
+        for (int i = 0; i < affected.size(); i++) {
+            int c = affected.get(i);
+            for (int e = depOffsets[c]; e < depOffsets[c + 1]; e++) {
+                int d = dependents[e];
+                if (termOf[d] >= 0 && inAffected.add(d)) affected.add(d);
+            }
+        }
+
+        // Kahn's order inside the affected subgraph, earliest planned term first
+        Map<Integer, Integer> pending = new HashMap<>();
+        for (int c : affected) {
+            for (int e = depOffsets[c]; e < depOffsets[c + 1]; e++) {
+                int d = dependents[e];
+                if (inAffected.contains(d)) pending.merge(d, 1, Integer::sum);
+            }
+        }
+        PriorityQueue<Integer> queue = new PriorityQueue<>(
+            Comparator.<Integer>comparingInt(c -> termOf[c]).thenComparingInt(c -> c));
+        queue.add(failed);
+
+        Map<Integer, Integer> newTerm = new HashMap<>();
+        int[] load = Arrays.copyOf(baseLoad, baseLoad.length + calendar.termsPerYear() * (affected.size() + 1));
+
+        while (!queue.isEmpty()) {
+            int c = queue.poll();
+            int term;
+            if (c == failed) {
+                // The failed attempt still took its seat, so its term keeps the load
+                term = place(c, termOf[c] + 1, load, labels.size(), fiveCourseTerms);
+            } else {
+                int earliest = Math.max(termOf[c], earliestAfterPrerequisites(c, termOf, newTerm, taken));
+                if (earliest == termOf[c]) {
+                    term = termOf[c];
+                } else {
+                    load[termOf[c]]--;
+                    term = place(c, earliest, load, labels.size(), fiveCourseTerms);
+                }
+            }
+            newTerm.put(c, term);
+
+            for (int e = depOffsets[c]; e < depOffsets[c + 1]; e++) {
+                int d = dependents[e];
+                if (!inAffected.contains(d)) continue;
+                if (pending.merge(d, -1, Integer::sum) == 0) queue.add(d);
+            }
+        }
+
+        int graduation = -1;
+        for (int c : planned) {
+            graduation = Math.max(graduation, newTerm.getOrDefault(c, termOf[c]));
+        }
+
+        List<String> delayed = new ArrayList<>();
+        for (int c : affected) {
+            if (c != failed && newTerm.getOrDefault(c, termOf[c]) > termOf[c]) {
+                delayed.add(catalog.codeAt(c));
+            }
+        }
+
+        return new CourseImpact(catalog.codeAt(failed), labels.get(termOf[failed]),
+            Math.max(0, graduation - oldGraduation), delayed);
+    }
+
+    // First term after every prerequisite group has one completed course
+    private int earliestAfterPrerequisites(int c, int[] termOf, Map<Integer, Integer> newTerm, long[] taken) {
+        int earliest = 0;
+        for (List<String> group : catalog.getCourseAt(c).prerequisiteExpr.getGroups()) {
+            int best = Integer.MAX_VALUE;
+            for (String code : group) {
+                int p = catalog.indexOf(code);
+                if (p < 0) continue;
+                if (CourseBits.get(taken, p)) {
+                    best = -1;
+                    break;
+                }
+                int t = newTerm.getOrDefault(p, termOf[p]);
+                if (t >= 0) best = Math.min(best, t);
+            }
+            // A group the original plan did not satisfy does not constrain the what-if
+            if (best != Integer.MAX_VALUE) earliest = Math.max(earliest, best + 1);
+        }
+        return earliest;
+    }
+
+    // First term from 'from' on where the course is offered and there is room
+    private int place(int c, int from, int[] load, int horizon, Set<Integer> fiveCourseTerms) {
+        CourseData cd = catalog.getCourseAt(c);
+        if (!calendar.isOfferedAnyTerm(cd)) return from;
+        int t = from;
+        while (true) {
+            boolean offered = calendar.isOffered(cd, t);
+            int limit = t < horizon && fiveCourseTerms.contains(t) ? 5 : 4;
+            if (offered && load[t] < limit) break;
+            t++;
+        }
+        load[t]++;
+        return t;
+    }
+}
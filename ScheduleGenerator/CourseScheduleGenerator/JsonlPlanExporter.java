@@ -0,0 +1,57 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes plans as JSON Lines, one object per planned course:
+ *
+ *   {"student":"s1","catalogVersion":3,"term":0,"termLabel":"Fall 1","course":"CS 134"}
+ *
+ * Plans without any course produce no line.
+ */
+public class JsonlPlanExporter extends PlanExporter {
+    private final StringBuilder line = new StringBuilder(128);
+    private String planPrefix;   // {"student":...,"catalogVersion":..., shared by the rows of one plan
+
+    public JsonlPlanExporter(Path file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    protected void startPlan(String studentId, int catalogVersion, TermCalendar calendar) {
+        line.setLength(0);
+        line.append("{\"student\":");
+        appendString(line, studentId);
+        line.append(",\"catalogVersion\":").append(catalogVersion).append(',');
+        planPrefix = line.toString();
+    }
+
+    @Override
+    protected void addRow(TermCalendar calendar, int term, String code) throws IOException {
+        line.setLength(0);
+        line.append(planPrefix).append("\"term\":").append(term).append(",\"termLabel\":");
+        appendString(line, calendar.label(term));
+        line.append(",\"course\":");
+        appendString(line, code);
+        line.append("}\n");
+
+        output(ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Quoted JSON string
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,324 @@
+import java.util.*;
+
+/**
+ * What a major (or minor) adds on top of the shared catalog graph: its required
+ * and elective courses as bitsets, prerequisites that only apply to its
+ * students, and per-department limits on courses per term (like the CS cap of
+ * FourYearPlanner).
+ *
+ * An overlay never copies the catalog or the graph, so one CoursePlanner and
+ * one DAG can serve every major. Overlays compose: major.with(minor) requires
+ * the courses of both, applies the extra prerequisites of both and keeps the
+ * stricter limit of each department.
+ *
+ * Extra prerequisites that would close a cycle with the catalog's own ones (or
+ * with those of the other overlay, when composing) are rejected.
+ */
+public class MajorOverlay {
+    private final CourseCatalog catalog;
+    private final String name;
+    private final long[] required;
+    private final long[] elective;                                      // never overlaps required
+    private final Map<Integer, List<int[]>> extraGroups = new HashMap<>(); // course → extra OR-groups
+    private int[] extraFrom = new int[8];                               // extra edges prerequisite → course
+    private int[] extraTo = new int[8];
+    private int extraCount;
+    private final Map<String, Quota> quotas = new LinkedHashMap<>();      // department → limit
+
+    // At most firstYearMax courses of the department per term in the first year, maxPerTerm afterwards
+    private static class Quota {
+        final String department;
+        final long[] courses;
+        final int firstYearMax;
+        final int maxPerTerm;
+
+        Quota(String department, long[] courses, int firstYearMax, int maxPerTerm) {
+            this.department = department;
+            this.courses = courses;
+            this.firstYearMax = firstYearMax;
+            this.maxPerTerm = maxPerTerm;
+        }
+    }
+
+    /**
+     * @param requiredCourses Required course codes; codes not in the catalog are ignored.
+     * @param electiveCourses Elective course codes; codes not in the catalog are ignored.
+     */
+    public MajorOverlay(CourseCatalog catalog, String name,
+                        Set<String> requiredCourses, Set<String> electiveCourses) {
+        this.catalog = catalog;
+        this.name = name;
+        this.required = bits(catalog, requiredCourses);
+        this.elective = bits(catalog, electiveCourses);
+        for (int w = 0; w < elective.length; w++) elective[w] &= ~required[w];
+    }
+
+    private MajorOverlay(CourseCatalog catalog, String name, long[] required, long[] elective) {
+        this.catalog = catalog;
+        this.name = name;
+        this.required = required;
+        this.elective = elective;
+    }
+
+    /**
+     * Adds a prerequisite group that only applies to this major: the course also
+     * needs one of the alternatives.
+     *
+     * @throws IllegalArgumentException if a course is not in the catalog, or if the group
+     *         creates a prerequisite cycle; the overlay is then left unchanged.
+     */
+    public MajorOverlay addPrerequisiteGroup(String course, Collection<String> alternatives) {
+        int[] group = new int[alternatives.size()];
+        int i = 0;
+        for (String alt : alternatives) group[i++] = indexOf(alt);
+        addGroupChecked(indexOf(course), group);
+        return this;
+    }
+
+    // Adds the group after checking that none of its edges closes a cycle
+    private void addGroupChecked(int course, int[] group) {
+        for (int p : group) {
+            String cycle = pathToPrerequisite(course, p);
+            if (cycle != null) {
+                throw new IllegalArgumentException("Overlay " + name + ": " + catalog.codeAt(p)
+                    + " as a prerequisite of " + catalog.codeAt(course) + " creates a cycle: " + cycle);
+            }
+        }
+        extraGroups.computeIfAbsent(course, k -> new ArrayList<>()).add(group);
+        for (int p : group) addEdge(p, course);
+    }
+
+    private void addEdge(int from, int to) {
+        if (extraCount == extraFrom.length) {
+            extraFrom = Arrays.copyOf(extraFrom, extraCount * 2);
+            extraTo = Arrays.copyOf(extraTo, extraCount * 2);
+        }
+        extraFrom[extraCount] = from;
+        extraTo[extraCount] = to;
+        extraCount++;
+    }
+
+    /**
+     * Searches from the course along its dependents (catalog and extra edges) for
+     * the prerequisite: if it is reached, the edge prerequisite → course closes a cycle.
+     *
+     * @return The cycle, e.g. "CS 134 -> CS 136 -> CS 134", or null if there is none.
+     */
+    private String pathToPrerequisite(int course, int prereq) {
+        int n = catalog.size();
+        int[] offsets = catalog.dependentOffsets();
+        int[] dependents = catalog.dependentsArray();
+        int[] parent = new int[n];   // course the search came from, -1 if not visited
+        Arrays.fill(parent, -1);
+        int[] stack = new int[n];
+        int sp = 0;
+        parent[course] = course;
+        stack[sp++] = course;
+
+        while (sp > 0) {
+            int v = stack[--sp];
+            if (v == prereq) return describeCycle(parent, course, prereq);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = dependents[e];
+                if (parent[w] < 0) {
+                    parent[w] = v;
+                    stack[sp++] = w;
+                }
+            }
+            for (int e = 0; e < extraCount; e++) {
+                int w = extraTo[e];
+                if (extraFrom[e] == v && parent[w] < 0) {
+                    parent[w] = v;
+                    stack[sp++] = w;
+                }
+            }
+        }
+        return null;
+    }
+
+    // course → ... → prereq from the search parents, closed by the new edge back to course
+    private String describeCycle(int[] parent, int course, int prereq) {
+        LinkedList<String> codes = new LinkedList<>();
+        codes.add(catalog.codeAt(course));
+        for (int v = prereq; v != course; v = parent[v]) codes.addFirst(catalog.codeAt(v));
+        codes.addFirst(catalog.codeAt(course));
+        return String.join(" -> ", codes);
+    }
+
+    public MajorOverlay addPrerequisite(String course, String prereq) {
+        return addPrerequisiteGroup(course, Collections.singletonList(prereq));
+    }
+
+    /**
+     * Limits the courses of a department (code prefix, e.g. "CS") taken in one term.
+     */
+    public MajorOverlay addQuota(String department, int firstYearMax, int maxPerTerm) {
+        long[] courses = CourseBits.create(catalog.size());
+        for (int c = 0; c < catalog.size(); c++) {
+            if (departmentOf(catalog.codeAt(c)).equals(department)) CourseBits.set(courses, c);
+        }
+        quotas.put(department, new Quota(department, courses, firstYearMax, maxPerTerm));
+        return this;
+    }
+
+    /**
+     * Combines two overlays of the same catalog (major + minor, double major...).
+     * A course required by either is required; the rest of the electives stay electives.
+     *
+     * @throws IllegalArgumentException if the extra prerequisites of the two overlays
+     *         together create a prerequisite cycle.
+     */
+    public MajorOverlay with(MajorOverlay other) {
+        if (other.catalog != catalog) throw new IllegalArgumentException("Overlays of different catalogs");
+
+        long[] req = new long[required.length];
+        long[] elec = new long[required.length];
+        for (int w = 0; w < req.length; w++) {
+            req[w] = required[w] | other.required[w];
+            elec[w] = (elective[w] | other.elective[w]) & ~req[w];
+        }
+        MajorOverlay combined = new MajorOverlay(catalog, name + " + " + other.name, req, elec);
+
+        // This overlay's groups are already acyclic with the catalog; the other's are checked on top
+        extraGroups.forEach((c, groups) -> combined.extraGroups.put(c, new ArrayList<>(groups)));
+        combined.extraFrom = Arrays.copyOf(extraFrom, extraFrom.length);
+        combined.extraTo = Arrays.copyOf(extraTo, extraTo.length);
+        combined.extraCount = extraCount;
+        other.extraGroups.forEach((c, groups) -> {
+            for (int[] group : groups) combined.addGroupChecked(c, group);
+        });
+
+        for (MajorOverlay overlay : Arrays.asList(this, other)) {
+            for (Quota q : overlay.quotas.values()) {
+                Quota existing = combined.quotas.get(q.department);
+                if (existing == null) {
+                    combined.quotas.put(q.department, q);
+                } else {
+                    combined.quotas.put(q.department, new Quota(q.department, q.courses,
+                        Math.min(q.firstYearMax, existing.firstYearMax), Math.min(q.maxPerTerm, existing.maxPerTerm)));
+                }
+            }
+        }
+        return combined;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CourseCatalog getCatalog() {
+        return catalog;
+    }
+
+    public boolean isRequired(int courseIndex) {
+        return CourseBits.get(required, courseIndex);
+    }
+
+    public boolean isElective(int courseIndex) {
+        return CourseBits.get(elective, courseIndex);
+    }
+
+    /**
+     * @return Codes of the required courses.
+     */
+    public Set<String> getRequiredCourses() {
+        return codes(required);
+    }
+
+    long[] requiredBits() {
+        return required;
+    }
+
+    long[] electiveBits() {
+        return elective;
+    }
+
+    /**
+     * @return Whether the major's own prerequisites of the course are in the completed bitset.
+     */
+    public boolean prerequisitesMet(int courseIndex, long[] completed) {
+        List<int[]> groups = extraGroups.get(courseIndex);
+        if (groups == null) return true;
+        for (int[] group : groups) {
+            boolean satisfied = false;
+            for (int p : group) {
+                if (CourseBits.get(completed, p)) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of department quotas, the size of the counters passed to quotaAllows/countQuota.
+     */
+    public int quotaCount() {
+        return quotas.size();
+    }
+
+    /**
+     * @param counts Courses of each quota's department already in this term.
+     * @return Whether one more course fits under every quota it belongs to.
+     */
+    public boolean quotaAllows(int courseIndex, int term, TermCalendar calendar, int[] counts) {
+        int q = 0;
+        for (Quota quota : quotas.values()) {
+            if (CourseBits.get(quota.courses, courseIndex)) {
+                int max = calendar.yearOf(term) == 0 ? quota.firstYearMax : quota.maxPerTerm;
+                if (counts[q] >= max) return false;
+            }
+            q++;
+        }
+        return true;
+    }
+
+    /**
+     * Counts a course placed in the term against the quotas of its department.
+     */
+    public void countQuota(int courseIndex, int[] counts) {
+        int q = 0;
+        for (Quota quota : quotas.values()) {
+            if (CourseBits.get(quota.courses, courseIndex)) counts[q]++;
+            q++;
+        }
+    }
+
+    /**
+     * @return Department of a course code: the part before the first space ("CS 134" → "CS").
+     */
+    public static String departmentOf(String code) {
+        int space = code.indexOf(' ');
+        return space < 0 ? code : code.substring(0, space);
+    }
+
+    private int indexOf(String code) {
+        int idx = catalog.indexOf(code);
+        if (idx < 0) throw new IllegalArgumentException("Unknown course: " + code);
+        return idx;
+    }
+
+    private Set<String> codes(long[] bits) {
+        Set<String> result = new TreeSet<>();
+        for (int c = 0; c < catalog.size(); c++) {
+            if (CourseBits.get(bits, c)) result.add(catalog.codeAt(c));
+        }
+        return result;
+    }
+
+    private static long[] bits(CourseCatalog catalog, Set<String> codes) {
+        long[] bits = CourseBits.create(catalog.size());
+        for (String code : codes) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) CourseBits.set(bits, idx);
+        }
+        return bits;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
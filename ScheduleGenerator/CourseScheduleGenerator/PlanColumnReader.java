@@ -0,0 +1,223 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a file written by ColumnarPlanExporter one row group at a time.
+ *
+ * Each group is read with one channel read into a reused buffer and its term
+ * and course columns are copied into reused arrays, so scanning millions of
+ * rows allocates little more than the student IDs. Callers either walk the
+ * columns of each group (nextGroup, termAt, courseAt, plan accessors) or let
+ * scan() visit every row.
+ */
+public class PlanColumnReader implements Closeable {
+
+    /** Receives one row; course is a dictionary id, see code(). */
+    public interface RowVisitor {
+        void row(String studentId, int catalogVersion, int term, int course);
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private long position;
+
+    private final List<String> codes = new ArrayList<>();   // dictionary id → course code
+    private final ByteBuffer groupHeader = ByteBuffer.allocate(ColumnarPlanExporter.GROUP_HEADER_SIZE);
+    private ByteBuffer payload = ByteBuffer.allocate(1 << 16);
+
+    // Current row group
+    private int rows;
+    private byte[] terms = new byte[0];      // unsigned term index
+    private char[] courses = new char[0];
+    private int plans;
+    private String[] planStudents = new String[0];
+    private int[] planVersions = new int[0];
+    private int[] planEnds = new int[0];     // row after the last row of each plan
+
+    /**
+     * @throws IOException if the file cannot be read or was not written by ColumnarPlanExporter.
+     */
+    public PlanColumnReader(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(ColumnarPlanExporter.HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != ColumnarPlanExporter.MAGIC || header.getInt() != ColumnarPlanExporter.FORMAT) {
+            channel.close();
+            throw new IOException(file + " is not a columnar plan export");
+        }
+        position = ColumnarPlanExporter.HEADER_SIZE;
+    }
+
+    /**
+     * Moves to the next row group.
+     *
+     * @return false at the end of the file.
+     * @throws IOException if the group is incomplete or corrupt.
+     */
+    public boolean nextGroup() throws IOException {
+        if (position == size) return false;
+        if (position + groupHeader.capacity() > size) throw new IOException("Truncated row group in " + file);
+
+        groupHeader.clear();
+        readFully(groupHeader, position);
+        groupHeader.flip();
+        int length = groupHeader.getInt();
+        int crc = groupHeader.getInt();
+        if (length <= 0 || position + groupHeader.capacity() + length > size) {
+            throw new IOException("Truncated row group in " + file);
+        }
+
+        if (payload.capacity() < length) payload = ByteBuffer.allocate(length);
+        payload.clear().limit(length);
+        readFully(payload, position + groupHeader.capacity());
+        payload.flip();
+        CRC32 check = new CRC32();
+        check.update(payload.array(), 0, length);
+        if ((int) check.getValue() != crc) throw new IOException("Corrupt row group at " + position + " in " + file);
+        position += groupHeader.capacity() + length;
+
+        decode();
+        return true;
+    }
+
+    private void decode() {
+        rows = payload.getInt();
+
+        int newCodes = payload.getInt();
+        for (int i = 0; i < newCodes; i++) codes.add(getString(payload));
+
+        plans = payload.getInt();
+        if (planStudents.length < plans) {
+            planStudents = new String[plans];
+            planVersions = new int[plans];
+            planEnds = new int[plans];
+        }
+        int end = 0;
+        for (int p = 0; p < plans; p++) {
+            planStudents[p] = getString(payload);
+            planVersions[p] = payload.getInt();
+            end += payload.getInt();
+            planEnds[p] = end;
+        }
+
+        if (terms.length < rows) {
+            terms = new byte[rows];
+            courses = new char[rows];
+        }
+        payload.get(terms, 0, rows);
+        payload.asCharBuffer().get(courses, 0, rows);
+    }
+
+    /**
+     * Visits every row of the remaining groups.
+     *
+     * @return Number of rows visited.
+     */
+    public long scan(RowVisitor visitor) throws IOException {
+        long visited = 0;
+        while (nextGroup()) {
+            int row = 0;
+            for (int p = 0; p < plans; p++) {
+                for (; row < planEnds[p]; row++) {
+                    visitor.row(planStudents[p], planVersions[p], terms[row] & 0xFF, courses[row]);
+                }
+            }
+            visited += rows;
+        }
+        return visited;
+    }
+
+    /**
+     * @return Rows in the current group.
+     */
+    public int rowCount() {
+        return rows;
+    }
+
+    /**
+     * @return Term index of a row of the current group.
+     */
+    public int termAt(int row) {
+        return terms[row] & 0xFF;
+    }
+
+    /**
+     * @return Course dictionary id of a row of the current group.
+     */
+    public int courseAt(int row) {
+        return courses[row];
+    }
+
+    /**
+     * @return Plans in the current group. A plan split between two groups is counted in both.
+     */
+    public int planCount() {
+        return plans;
+    }
+
+    public String studentOf(int plan) {
+        return planStudents[plan];
+    }
+
+    public int catalogVersionOf(int plan) {
+        return planVersions[plan];
+    }
+
+    /**
+     * @return First row of the plan in the current group.
+     */
+    public int firstRowOf(int plan) {
+        return plan == 0 ? 0 : planEnds[plan - 1];
+    }
+
+    /**
+     * @return Row after the last row of the plan in the current group.
+     */
+    public int endRowOf(int plan) {
+        return planEnds[plan];
+    }
+
+    /**
+     * @return Course code of a dictionary id read so far.
+     */
+    public String code(int course) {
+        return codes.get(course);
+    }
+
+    /**
+     * @return Number of course codes read so far.
+     */
+    public int codeCount() {
+        return codes.size();
+    }
+
+    private void readFully(ByteBuffer buffer, long at) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, at);
+            if (n < 0) throw new IOException("Unexpected end of " + file);
+            at += n;
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getChar();
+        String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
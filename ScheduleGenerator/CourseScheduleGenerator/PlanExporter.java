@@ -0,0 +1,127 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Streams plans to a file as they are produced, one row per planned course:
+ * student ID, catalog version, term index and course code.
+ *
+ * Nothing is kept per plan once it is written, so exporting a whole cohort
+ * needs the same memory as exporting one student: a fixed output buffer plus
+ * whatever the format buffers itself (see ColumnarPlanExporter).
+ *
+ * Formats:
+ *   - JsonlPlanExporter: one JSON object per row, for tools that read text;
+ *   - ColumnarPlanExporter: compact binary columns, read with PlanColumnReader.
+ */
+public abstract class PlanExporter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long rows;
+    private long plans;
+
+    protected PlanExporter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens the exporter that matches the file name: JSONL for ".jsonl", columnar otherwise.
+     */
+    public static PlanExporter open(Path file) throws IOException {
+        return file.getFileName().toString().endsWith(".jsonl")
+            ? new JsonlPlanExporter(file)
+            : new ColumnarPlanExporter(file);
+    }
+
+    /**
+     * Writes every course of a generated plan.
+     */
+    public void write(String studentId, int catalogVersion, SchedulePlan plan) throws IOException {
+        TermCalendar calendar = plan.getCalendar();
+        startPlan(studentId, catalogVersion, calendar);
+        for (int t = 0; t < plan.termCount(); t++) {
+            for (String code : plan.codesIn(t)) addCourse(calendar, t, code);
+        }
+        plans++;
+    }
+
+    /**
+     * Writes every course of a plan read back from a PlanStore.
+     */
+    public void write(StoredPlan plan) throws IOException {
+        startPlan(plan.studentId, plan.catalogVersion, plan.calendar);
+        for (int t = 0; t < plan.termCount(); t++) {
+            for (String code : plan.codesIn(t)) addCourse(plan.calendar, t, code);
+        }
+        plans++;
+    }
+
+    private void addCourse(TermCalendar calendar, int term, String code) throws IOException {
+        addRow(calendar, term, code);
+        rows++;
+    }
+
+    /**
+     * Called before the rows of each plan.
+     */
+    protected abstract void startPlan(String studentId, int catalogVersion, TermCalendar calendar) throws IOException;
+
+    /**
+     * Called for every course of the current plan, in term order.
+     */
+    protected abstract void addRow(TermCalendar calendar, int term, String code) throws IOException;
+
+    /**
+     * Called once by close(), before the buffer is flushed.
+     */
+    protected void finish() throws IOException {
+    }
+
+    /**
+     * Appends bytes to the file through the output buffer; data larger than the
+     * buffer is written straight to the channel.
+     */
+    protected void output(ByteBuffer data) throws IOException {
+        if (data.remaining() > buffer.remaining()) flushBuffer();
+        if (data.remaining() <= buffer.remaining()) {
+            buffer.put(data);
+        } else {
+            while (data.hasRemaining()) channel.write(data);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * @return Rows (planned courses) written so far.
+     */
+    public long rowCount() {
+        return rows;
+    }
+
+    /**
+     * @return Plans written so far.
+     */
+    public long planCount() {
+        return plans;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,580 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Improvement stage for the greedy plans of FourYearPlanner and CoursePlanner.
+ *
+ * Runs one simulated-annealing search per core, each from the initial plan with
+ * its own seed, and returns the best plan found within the time budget. Moves
+ * are: move a course to another semester, swap two courses, add a course,
+ * drop a course and replace a course by another one in the same semester.
+ *
+ * Every move is checked incrementally: only the moved courses (season, room,
+ * preferred season, CS courses per semester, prerequisites before their new
+ * semester, a free section in the interval index of that semester) and their
+ * planned dependents are looked at, and the score is updated by a delta.
+ * A move is undone from a few fields of the search, so the loop allocates
+ * nothing. The score rewards ratings, required courses and the graduation
+ * requirements (Division I/II, Writing Intensive, DPE).
+ */
+public class PlanImprover {
+    private static final double REQUIRED_WEIGHT = 20.0;
+    private static final double REQUIREMENT_WEIGHT = 8.0;
+    private static final int DIV1_NEEDED = 3;
+    private static final int DIV2_NEEDED = 3;
+    private static final int WI_NEEDED = 2;
+    private static final int DPE_NEEDED = 1;
+
+    // Move kinds
+    private static final int MOVE = 0;
+    private static final int SWAP = 1;
+    private static final int ADD = 2;
+    private static final int DROP = 3;
+    private static final int REPLACE = 4;
+
+    private final CourseCatalog catalog;
+    private final TermCalendar calendar;
+    private final int[][][] groupsOf;     // course → prerequisite groups → course indexes
+    private final int[][] dependentsOf;   // course → courses having it in a group
+
+    public PlanImprover(CourseCatalog catalog) {
+        this(catalog, TermCalendar.FOUR_YEAR_SEMESTERS);
+    }
+
+    public PlanImprover(CourseCatalog catalog, TermCalendar calendar) {
+        this.catalog = catalog;
+        this.calendar = calendar;
+        int n = catalog.size();
+        groupsOf = new int[n][][];
+        List<List<Integer>> deps = new ArrayList<>();
+        for (int c = 0; c < n; c++) deps.add(new ArrayList<>());
+
+        for (int c = 0; c < n; c++) {
+            List<List<String>> groups = catalog.getCourseAt(c).prerequisiteExpr.getGroups();
+            groupsOf[c] = new int[groups.size()][];
+            for (int g = 0; g < groups.size(); g++) {
+                int[] alts = new int[groups.get(g).size()];
+                int k = 0;
+                for (String code : groups.get(g)) {
+                    int p = catalog.indexOf(code);
+                    if (p < 0) continue;
+                    alts[k++] = p;
+                    if (!deps.get(p).contains(c)) deps.get(p).add(c);
+                }
+                groupsOf[c][g] = Arrays.copyOf(alts, k);
+            }
+        }
+        dependentsOf = new int[n][];
+        for (int c = 0; c < n; c++) {
+            dependentsOf[c] = deps.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Improves a plan from CoursePlanner.FourYearPlan.
+     *
+     * @param plan             Semester (from 1) → course codes.
+     * @param requiredCourses  Required courses of the major.
+     * @param electiveCourses  Elective courses of the major (only required and electives are planned).
+     * @param preferredSemesters Course code → season label the course must stay in, as for CoursePlanner.
+     * @param maxCoursesPerSem Course limit per semester.
+     * @param budgetMillis     Wall-clock budget.
+     * @param seed             Seed of the first search; search i uses seed + i.
+     * @return Best plan found, same shape as the input.
+     */
+    public Map<Integer, List<String>> improve(Map<Integer, List<String>> plan,
+                                              Set<String> requiredCourses, Set<String> electiveCourses,
+                                              Map<String, String> preferredSemesters,
+                                              int maxCoursesPerSem, long budgetMillis, long seed) {
+        int terms = calendar.size();
+        int[] initial = new int[catalog.size()];
+        Arrays.fill(initial, -1);
+        plan.forEach((sem, codes) -> {
+            for (String code : codes) {
+                int idx = catalog.indexOf(code);
+                if (idx >= 0) initial[idx] = sem - 1;
+            }
+        });
+
+        Set<String> candidates = new HashSet<>(requiredCourses);
+        candidates.addAll(electiveCourses);
+        int[] limits = new int[terms];
+        Arrays.fill(limits, maxCoursesPerSem);
+        int[] csLimits = new int[terms];
+        Arrays.fill(csLimits, Integer.MAX_VALUE);   // CoursePlanner has no CS cap
+
+        int[] best = search(initial, limits, csLimits, 0, flags(requiredCourses), flags(candidates),
+            new boolean[catalog.size()], seasons(CoursePlanner.preferredSeasons(preferredSemesters)),
+            budgetMillis, seed);
+
+        Map<Integer, List<String>> result = new HashMap<>();
+        for (int sem = 1; sem <= terms; sem++) result.put(sem, new ArrayList<>());
+        for (int c = 0; c < best.length; c++) {
+            if (best[c] >= 0) result.get(best[c] + 1).add(catalog.codeAt(c));
+        }
+        return result;
+    }
+
+    /**
+     * Improves a plan from FourYearPlanner.generatePlan.
+     * Every catalog course may be planned; none is treated as required. Moves
+     * keep the planner's rules: preferred seasons and its CS courses per semester.
+     *
+     * @param plan                     Semester label → courses, in semester order.
+     * @param preferredSeasons         Course code → the only season it may be planned in.
+     * @param semestersWithFiveCourses Semester indexes allowed to hold 5 courses.
+     * @param alreadyTaken             Courses completed before the plan.
+     * @param semestersCompleted       Semesters that cannot be changed any more.
+     * @param budgetMillis             Wall-clock budget.
+     * @param seed                     Seed of the first search; search i uses seed + i.
+     * @return Best plan found, same labels as the input.
+     */
+    public Map<String, List<CourseData>> improveFourYearPlan(Map<String, List<CourseData>> plan,
+                                                             Map<String, Season> preferredSeasons,
+                                                             Set<Integer> semestersWithFiveCourses,
+                                                             Set<String> alreadyTaken, int semestersCompleted,
+                                                             long budgetMillis, long seed) {
+        List<String> labels = new ArrayList<>(plan.keySet());
+        int[] initial = new int[catalog.size()];
+        Arrays.fill(initial, -1);
+        for (int t = 0; t < labels.size(); t++) {
+            for (CourseData cd : plan.get(labels.get(t))) initial[cd.index] = t;
+        }
+        int[] limits = new int[labels.size()];
+        for (int t = 0; t < limits.length; t++) limits[t] = semestersWithFiveCourses.contains(t) ? 5 : 4;
+        int[] csLimits = new int[labels.size()];
+        for (int t = 0; t < csLimits.length; t++) csLimits[t] = FourYearPlanner.maxCSCourses(calendar, t);
+
+        boolean[] all = new boolean[catalog.size()];
+        Arrays.fill(all, true);
+        int[] best = search(initial, limits, csLimits, semestersCompleted, new boolean[catalog.size()], all,
+            flags(alreadyTaken), seasons(preferredSeasons), budgetMillis, seed);
+
+        Map<String, List<CourseData>> result = new LinkedHashMap<>();
+        for (String label : labels) result.put(label, new ArrayList<>());
+        for (int c = 0; c < best.length; c++) {
+            if (best[c] >= 0) result.get(labels.get(best[c])).add(catalog.getCourseAt(c));
+        }
+        return result;
+    }
+
+    /**
+     * Scores a FourYearPlanner plan the way the search does: course ratings plus
+     * the graduation requirements met by the taken and planned courses.
+     */
+    public double scoreFourYearPlan(Map<String, List<CourseData>> plan, Set<String> alreadyTaken) {
+        List<String> labels = new ArrayList<>(plan.keySet());
+        int[] counts = new int[4];
+        double score = 0;
+        for (int t = 0; t < labels.size(); t++) {
+            for (CourseData cd : plan.get(labels.get(t))) {
+                score += calendar.rating(cd, t);
+                count(counts, cd);
+            }
+        }
+        for (String code : alreadyTaken) {
+            CourseData cd = catalog.getCourse(code);
+            if (cd != null) count(counts, cd);
+        }
+        return score + requirementBonus(counts);
+    }
+
+    private static void count(int[] counts, CourseData cd) {
+        if (cd.division == 1) counts[0]++;
+        else if (cd.division == 2) counts[1]++;
+        if (cd.isWritingIntensive) counts[2]++;
+        if (cd.isDPE) counts[3]++;
+    }
+
+    private static double requirementBonus(int[] counts) {
+        return REQUIREMENT_WEIGHT * (Math.min(counts[0], DIV1_NEEDED) + Math.min(counts[1], DIV2_NEEDED)
+            + Math.min(counts[2], WI_NEEDED) + Math.min(counts[3], DPE_NEEDED));
+    }
+
+    // Runs one search per core and keeps the best plan
+    private int[] search(int[] initial, int[] limits, int[] csLimits, int firstTerm, boolean[] required,
+                         boolean[] candidates, boolean[] taken, Season[] onlyIn, long budgetMillis, long seed) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Search>> runs = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long runSeed = seed + i;
+                runs.add(() -> {
+                    Search s = new Search(initial, limits, csLimits, firstTerm, required, candidates, taken,
+                        onlyIn, runSeed);
+                    s.run(deadline);
+                    return s;
+                });
+            }
+
+            Search best = null;
+            for (Future<Search> f : pool.invokeAll(runs)) {
+                Search s = f.get();
+                if (best == null || s.bestScore > best.bestScore) best = s;
+            }
+            return best.bestTerm;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return initial.clone();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Plan improvement failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private boolean[] flags(Set<String> codes) {
+        boolean[] result = new boolean[catalog.size()];
+        for (String code : codes) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) result[idx] = true;
+        }
+        return result;
+    }
+
+    private Season[] seasons(Map<String, Season> preferredSeasons) {
+        Season[] result = new Season[catalog.size()];
+        preferredSeasons.forEach((code, season) -> {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) result[idx] = season;
+        });
+        return result;
+    }
+
+    /**
+     * State of one annealing run. Only touched by its own thread.
+     */
+    private class Search {
+        final int n = catalog.size();
+        final int[] limits;
+        final int[] csLimits;
+        final int firstTerm;
+        final boolean[] required;
+        final boolean[] taken;
+        final Season[] onlyIn;            // preferred season of each course, null if any
+        final boolean[] isCS;
+        final SplittableRandom random;
+
+        final int[] term;                 // semester of each course, -1 if not planned
+        final Section[] section;          // section used by each planned course (null if it never fitted)
+        final int[] load;
+        final int[] csLoad;
+        final WeeklyIntervalIndex[] busy; // occupied times of each semester
+        final int[] pool;                 // courses that may be planned (candidates not taken)
+        final int[] counts = new int[4];  // div1, div2, wi, dpe among taken + planned courses
+
+        double score;
+        double bestScore;
+        int[] bestTerm;
+
+        // Undo record of the last applied move
+        int undoKind;
+        int undoCourse, undoFrom, undoTo;     // moved, dropped or replaced course; its old and new semester
+        int undoOther;                        // swapped or replacing course
+        Section undoSection, undoOtherSection;
+
+        Search(int[] initial, int[] limits, int[] csLimits, int firstTerm, boolean[] required,
+               boolean[] candidates, boolean[] taken, Season[] onlyIn, long seed) {
+            this.limits = limits;
+            this.csLimits = csLimits;
+            this.firstTerm = firstTerm;
+            this.required = required;
+            this.taken = taken;
+            this.onlyIn = onlyIn;
+            this.random = new SplittableRandom(seed);
+            this.term = initial.clone();
+            this.section = new Section[n];
+            this.load = new int[limits.length];
+            this.csLoad = new int[limits.length];
+            this.isCS = new boolean[n];
+            for (int c = 0; c < n; c++) isCS[c] = FourYearPlanner.isCSCourse(catalog.codeAt(c));
+            this.busy = new WeeklyIntervalIndex[limits.length];
+            for (int t = 0; t < busy.length; t++) busy[t] = new WeeklyIntervalIndex();
+
+            List<Integer> poolList = new ArrayList<>();
+            for (int c = 0; c < n; c++) {
+                if (candidates[c] && !taken[c] && !isFixed(c)) poolList.add(c);
+                if (taken[c]) count(c, 1);
+                if (term[c] >= 0) {
+                    load[term[c]]++;
+                    if (isCS[c]) csLoad[term[c]]++;
+                    section[c] = freeSection(c, term[c]);
+                    if (section[c] != null) busy[term[c]].add(section[c]);
+                    count(c, 1);
+                    score += rating(c, term[c]) + (required[c] ? REQUIRED_WEIGHT : 0);
+                }
+            }
+            pool = poolList.stream().mapToInt(Integer::intValue).toArray();
+            score += requirementBonus();
+            bestScore = score;
+            bestTerm = term.clone();
+        }
+
+        // Courses planned before firstTerm are history and never move
+        boolean isFixed(int c) {
+            return term[c] >= 0 && term[c] < firstTerm;
+        }
+
+        void run(long deadline) {
+            if (pool.length == 0 || firstTerm >= limits.length) return;
+            long start = System.nanoTime();
+            double span = Math.max(1, deadline - start);
+            double t0 = 5.0, t1 = 0.01;
+            double temperature = t0;
+
+            for (long iter = 0; ; iter++) {
+                if ((iter & 255) == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline) break;
+                    temperature = t0 * Math.pow(t1 / t0, (now - start) / span);
+                }
+
+                double before = score;
+                if (!randomMove()) continue;
+
+                double delta = score - before;
+                if (delta < 0 && random.nextDouble() >= Math.exp(delta / temperature)) {
+                    undo();
+                    continue;
+                }
+                if (score > bestScore + 1e-9) {
+                    bestScore = score;
+                    System.arraycopy(term, 0, bestTerm, 0, n);
+                }
+            }
+        }
+
+        // Applies a random valid move and records how to undo it; false if none applied
+        boolean randomMove() {
+            int kind = random.nextInt(5);
+            int c = pool[random.nextInt(pool.length)];
+            int t = firstTerm + random.nextInt(limits.length - firstTerm);
+
+            switch (kind) {
+                case MOVE: {
+                    if (term[c] < 0 || term[c] == t || load[t] >= limits[t]) return false;
+                    int from = term[c];
+                    Section old = section[c];
+                    unplace(c);
+                    Section s = canPlace(c, t) ? freeSection(c, t) : null;
+                    if (s != null) place(c, t, s);
+                    if (s == null || !dependentsOk(c, from)) {
+                        if (s != null) unplace(c);
+                        place(c, from, old);
+                        return false;
+                    }
+                    record(kind, c, from, t, old, -1, null);
+                    return true;
+                }
+                case SWAP: {
+                    int d = pool[random.nextInt(pool.length)];
+                    if (term[c] < 0 || term[d] < 0 || term[c] == term[d]) return false;
+                    int tc = term[c], td = term[d];
+                    Section sc = section[c], sd = section[d];
+                    unplace(c);
+                    unplace(d);
+                    Section nc = canPlace(c, td) ? freeSection(c, td) : null;
+                    if (nc != null) place(c, td, nc);
+                    Section nd = nc != null && canPlace(d, tc) ? freeSection(d, tc) : null;
+                    if (nd != null) place(d, tc, nd);
+                    if (nd == null || !dependentsOk(c, tc, d, td)) {
+                        if (nd != null) unplace(d);
+                        if (nc != null) unplace(c);
+                        place(c, tc, sc);
+                        place(d, td, sd);
+                        return false;
+                    }
+                    record(kind, c, tc, td, sc, d, sd);
+                    return true;
+                }
+                case ADD: {
+                    if (term[c] >= 0 || !canPlace(c, t)) return false;
+                    Section s = freeSection(c, t);
+                    if (s == null) return false;
+                    place(c, t, s);
+                    record(kind, c, -1, t, null, -1, null);
+                    return true;
+                }
+                case DROP: {
+                    if (term[c] < 0) return false;
+                    int from = term[c];
+                    Section old = section[c];
+                    unplace(c);
+                    if (!dependentsOk(c, from)) {
+                        place(c, from, old);
+                        return false;
+                    }
+                    record(kind, c, from, -1, old, -1, null);
+                    return true;
+                }
+                default: { // replace a planned course by an unplanned one, same semester
+                    int d = pool[random.nextInt(pool.length)];
+                    if (term[c] < 0 || term[d] >= 0) return false;
+                    int tc = term[c];
+                    Section sc = section[c];
+                    unplace(c);
+                    Section sd = canPlace(d, tc) ? freeSection(d, tc) : null;
+                    if (sd != null) place(d, tc, sd);
+                    if (sd == null || !dependentsOk(c, tc, d, -1)) {
+                        if (sd != null) unplace(d);
+                        place(c, tc, sc);
+                        return false;
+                    }
+                    record(REPLACE, c, tc, -1, sc, d, null);
+                    return true;
+                }
+            }
+        }
+
+        void record(int kind, int c, int from, int to, Section old, int other, Section otherOld) {
+            undoKind = kind;
+            undoCourse = c;
+            undoFrom = from;
+            undoTo = to;
+            undoSection = old;
+            undoOther = other;
+            undoOtherSection = otherOld;
+        }
+
+        // Reverts the last move recorded by randomMove
+        void undo() {
+            int c = undoCourse;
+            switch (undoKind) {
+                case MOVE:
+                    unplace(c);
+                    place(c, undoFrom, undoSection);
+                    break;
+                case SWAP:
+                    unplace(c);
+                    unplace(undoOther);
+                    place(c, undoFrom, undoSection);
+                    place(undoOther, undoTo, undoOtherSection);
+                    break;
+                case ADD:
+                    unplace(c);
+                    break;
+                case DROP:
+                    place(c, undoFrom, undoSection);
+                    break;
+                default:
+                    unplace(undoOther);
+                    place(c, undoFrom, undoSection);
+                    break;
+            }
+        }
+
+        // Season, preference, room, CS cap and prerequisites of course c in semester t
+        // (c itself is not planned)
+        boolean canPlace(int c, int t) {
+            if (load[t] >= limits[t]) return false;
+            if (isCS[c] && csLoad[t] >= csLimits[t]) return false;
+            if (onlyIn[c] != null && calendar.seasonOf(t) != onlyIn[c]) return false;
+            CourseData cd = catalog.getCourseAt(c);
+            if (!calendar.isOffered(cd, t)) return false;
+            for (int[] group : groupsOf[c]) {
+                if (!groupDoneBefore(group, t)) return false;
+            }
+            return true;
+        }
+
+        boolean groupDoneBefore(int[] group, int t) {
+            for (int p : group) {
+                if (taken[p] || (term[p] >= 0 && term[p] < t)) return true;
+            }
+            return false;
+        }
+
+        // After moving course c away from oldC, every group of a planned dependent
+        // that was satisfied before the move must still be satisfied.
+        // Only the moved course and its dependents are looked at.
+        boolean dependentsOk(int c, int oldC) {
+            return dependentsOk(c, c, oldC, -1, -1);
+        }
+
+        // Same for two courses moved at once (d = -1 for none; oldD = -1 if d was not planned)
+        boolean dependentsOk(int c, int oldC, int d, int oldD) {
+            return dependentsOk(c, c, oldC, d, oldD) && dependentsOk(d, c, oldC, d, oldD);
+        }
+
+        // Checks the dependents of m, one of the moved courses c and d
+        boolean dependentsOk(int m, int c, int oldC, int d, int oldD) {
+            for (int dep : dependentsOf[m]) {
+                if (term[dep] < 0) continue;
+                for (int[] group : groupsOf[dep]) {
+                    if (!contains(group, m) || groupDoneBefore(group, term[dep])) continue;
+
+                    // Unsatisfied now: was it satisfied before the move?
+                    int newC = term[c];
+                    int newD = d >= 0 ? term[d] : -1;
+                    term[c] = oldC;
+                    if (d >= 0) term[d] = oldD;
+                    boolean before = term[dep] >= 0 && groupDoneBefore(group, term[dep]);
+                    term[c] = newC;
+                    if (d >= 0) term[d] = newD;
+                    if (before) return false;
+                }
+            }
+            return true;
+        }
+
+        Section freeSection(int c, int t) {
+            List<Section> sections = catalog.getCourseAt(c).sections;
+            if (sections.isEmpty()) return null;
+            int start = random.nextInt(sections.size());
+            for (int i = 0; i < sections.size(); i++) {
+                Section s = sections.get((start + i) % sections.size());
+                if (busy[t].fits(s)) return s;
+            }
+            return null;
+        }
+
+        void place(int c, int t, Section s) {
+            term[c] = t;
+            section[c] = s;
+            load[t]++;
+            if (isCS[c]) csLoad[t]++;
+            if (s != null) busy[t].add(s);
+            double bonusBefore = requirementBonus();
+            count(c, 1);
+            score += rating(c, t) + (required[c] ? REQUIRED_WEIGHT : 0) + requirementBonus() - bonusBefore;
+        }
+
+        void unplace(int c) {
+            int t = term[c];
+            if (section[c] != null) busy[t].remove(section[c]);
+            load[t]--;
+            if (isCS[c]) csLoad[t]--;
+            double bonusBefore = requirementBonus();
+            count(c, -1);
+            score -= rating(c, t) + (required[c] ? REQUIRED_WEIGHT : 0) + bonusBefore - requirementBonus();
+            term[c] = -1;
+            section[c] = null;
+        }
+
+        double rating(int c, int t) {
+            return calendar.rating(catalog.getCourseAt(c), t);
+        }
+
+        void count(int c, int sign) {
+            CourseData cd = catalog.getCourseAt(c);
+            if (cd.division == 1) counts[0] += sign;
+            else if (cd.division == 2) counts[1] += sign;
+            if (cd.isWritingIntensive) counts[2] += sign;
+            if (cd.isDPE) counts[3] += sign;
+        }
+
+        double requirementBonus() {
+            return PlanImprover.requirementBonus(counts);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,552 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded store for generated plans: an append-only binary log plus an
+ * in-memory index.
+ *
+ * Every record is [payload length][CRC32][payload]. Payloads are plans (keyed
+ * by student ID and catalog version), batch checkpoints, and dictionary
+ * entries that give each course code a 2-byte id, so a plan costs a few bytes
+ * per course. On open the log is replayed to rebuild the index; a torn or
+ * corrupt tail (a crash in the middle of a write) is cut off.
+ *
+ * The index maps a student to the offset of its latest plan, so lookups are
+ * one hash lookup and one positional read. A newer plan for the same student
+ * and catalog version supersedes the older one; once superseded records make
+ * up more than half the file, it is compacted on a background thread while
+ * writers keep appending.
+ */
+public class PlanStore implements Closeable {
+    private static final int MAGIC = 0x504C4E53;   // "PLNS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PLAN = 1;
+    private static final byte CHECKPOINT = 2;
+    private static final byte CODE = 3;
+    private static final long MIN_DEAD_BYTES_TO_COMPACT = 1 << 20;
+
+    // Position and size of one record in the log
+    private static class Entry {
+        long offset;
+        final int length;
+
+        Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private long end;                     // where the next record goes
+    private long deadBytes;               // superseded records
+    private long dictionaryBytes;         // dictionary records (never dead)
+
+    private final List<String> codes = new ArrayList<>();            // dictionary id → course code
+    private final Map<String, Integer> codeIds = new HashMap<>();
+
+    private final Map<String, Entry> latest = new HashMap<>();       // student → latest plan
+    private final Map<String, Entry> byVersion = new HashMap<>();    // student + catalog version → latest plan
+    private final Map<String, Entry> checkpointEntries = new HashMap<>();
+    private final Map<String, Long> checkpoints = new HashMap<>();   // batch → position to resume from
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "plan-store-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> compaction;
+
+    /**
+     * Opens (or creates) the log and rebuilds the index from it.
+     */
+    public PlanStore(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        channel = FileChannel.open(this.file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT);
+            header.flip();
+            writeFully(channel, header, 0);
+            end = HEADER_SIZE;
+        } else {
+            replay();
+        }
+    }
+
+    // ── Plans ──────────────────────────────────
+
+    /**
+     * Appends a plan. It becomes the student's latest plan and replaces any
+     * earlier plan of the same student for the same catalog version.
+     */
+    public synchronized void put(String studentId, int catalogVersion, SchedulePlan plan) throws IOException {
+        TermCalendar calendar = plan.getCalendar();
+        List<List<String>> terms = new ArrayList<>(plan.termCount());
+        int courses = 0;
+        for (int t = 0; t < plan.termCount(); t++) {
+            if (plan.count(t) > 255) throw new IllegalArgumentException("Too many courses in " + calendar.label(t));
+            List<String> term = plan.codesIn(t);
+            for (String code : term) codeId(code);
+            terms.add(term);
+            courses += term.size();
+        }
+
+        byte[] student = utf8(studentId);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + student.length + 4 + 8 + 2
+            + calendar.termsPerYear() + plan.termCount() + 2 * courses);
+        payload.put(PLAN);
+        putString(payload, student);
+        payload.putInt(catalogVersion);
+        payload.putLong(System.currentTimeMillis());
+        payload.put((byte) calendar.years());
+        payload.put((byte) calendar.termsPerYear());
+        for (Season season : calendar.seasons()) payload.put((byte) season.ordinal());
+        for (List<String> term : terms) {
+            payload.put((byte) term.size());
+            for (String code : term) payload.putChar((char) (int) codeIds.get(code));
+        }
+        payload.flip();
+
+        Entry entry = append(payload);
+        indexPlan(studentId, catalogVersion, entry);
+        maybeCompact();
+    }
+
+    /**
+     * @return The student's most recent plan, or null if there is none.
+     */
+    public synchronized StoredPlan latest(String studentId) throws IOException {
+        Entry entry = latest.get(studentId);
+        return entry == null ? null : decodePlan(read(channel, entry));
+    }
+
+    /**
+     * @return The student's most recent plan for that catalog version, or null.
+     */
+    public synchronized StoredPlan get(String studentId, int catalogVersion) throws IOException {
+        Entry entry = byVersion.get(versionKey(studentId, catalogVersion));
+        return entry == null ? null : decodePlan(read(channel, entry));
+    }
+
+    /**
+     * @return IDs of every student with a stored plan.
+     */
+    public synchronized Set<String> students() {
+        return new TreeSet<>(latest.keySet());
+    }
+
+    /**
+     * Streams the latest plan of every student, in student order, to an exporter.
+     *
+     * @return Number of plans exported.
+     */
+    public synchronized int exportLatest(PlanExporter exporter) throws IOException {
+        int exported = 0;
+        for (String studentId : new TreeSet<>(latest.keySet())) {
+            exporter.write(decodePlan(read(channel, latest.get(studentId))));
+            exported++;
+        }
+        return exported;
+    }
+
+    // ── Batch runs ─────────────────────────────
+
+    /**
+     * Records that a batch run has finished its first 'position' students.
+     * The plans written before are flushed to disk first.
+     */
+    public synchronized void checkpoint(String batchId, long position) throws IOException {
+        byte[] batch = utf8(batchId);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + batch.length + 8);
+        payload.put(CHECKPOINT);
+        putString(payload, batch);
+        payload.putLong(position);
+        payload.flip();
+
+        channel.force(false);
+        Entry entry = append(payload);
+        indexCheckpoint(batchId, position, entry);
+        maybeCompact();
+    }
+
+    /**
+     * @return Number of students of the batch already done (0 for a new batch).
+     */
+    public synchronized long resumePosition(String batchId) {
+        return checkpoints.getOrDefault(batchId, 0L);
+    }
+
+    /**
+     * Forgets the checkpoint of a batch, so it runs from the start next time.
+     */
+    public void forgetBatch(String batchId) throws IOException {
+        checkpoint(batchId, -1);
+    }
+
+    /**
+     * Plans and stores every student of a batch, resuming after the last checkpoint
+     * if an earlier run of the same batch was interrupted.
+     *
+     * @param checkpointEvery Students between two checkpoints.
+     * @return Number of students planned by this call.
+     */
+    public int runBatch(String batchId, List<String> studentIds, int catalogVersion,
+                        Function<String, SchedulePlan> planner, int checkpointEvery) throws IOException {
+        int planned = 0;
+        for (int i = (int) resumePosition(batchId); i < studentIds.size(); i++) {
+            String studentId = studentIds.get(i);
+            put(studentId, catalogVersion, planner.apply(studentId));
+            planned++;
+            if ((i + 1) % checkpointEvery == 0 && i + 1 < studentIds.size()) checkpoint(batchId, i + 1);
+        }
+        if (planned > 0) checkpoint(batchId, studentIds.size());
+        return planned;
+    }
+
+    // ── Compaction ─────────────────────────────
+
+    /**
+     * Starts a compaction on the background thread (if none is running).
+     *
+     * @return The running compaction.
+     */
+    public synchronized Future<?> compactInBackground() {
+        if (compaction == null || compaction.isDone()) {
+            compaction = compactor.submit(() -> {
+                compact();
+                return null;
+            });
+        }
+        return compaction;
+    }
+
+    private void maybeCompact() {
+        if (deadBytes >= MIN_DEAD_BYTES_TO_COMPACT && deadBytes * 2 > end) compactInBackground();
+    }
+
+    /**
+     * Rewrites the log with only the live records. The copy is made without
+     * holding the lock; only the records appended meanwhile are copied while
+     * writers wait, then the files are swapped and the index relocated. If
+     * anything fails, the store keeps using the old log and the partial copy
+     * is deleted.
+     */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            compactInto(tmp);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Plan store " + file + ": compaction failed, keeping the old log: " + e);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // Overwritten by the next compaction
+            }
+            throw e;
+        }
+    }
+
+    private void compactInto(Path tmp) throws IOException {
+        List<Entry> live = new ArrayList<>();
+        List<String> dictionary;
+        long snapshotEnd;
+        synchronized (this) {
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Entry e : byVersion.values()) if (seen.add(e)) live.add(e);
+            for (Entry e : checkpointEntries.values()) if (seen.add(e)) live.add(e);
+            dictionary = new ArrayList<>(codes);
+            snapshotEnd = end;
+        }
+        live.sort(Comparator.comparingLong(e -> e.offset));
+
+        Map<Long, Long> moved = new HashMap<>();
+        long written;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT);
+            header.flip();
+            written = writeFully(out, header, 0);
+
+            // Same ids as before, so records appended meanwhile stay valid
+            for (int id = 0; id < dictionary.size(); id++) {
+                written += writeRecord(out, codePayload(id, dictionary.get(id)), written);
+            }
+            for (Entry e : live) {
+                ByteBuffer record = ByteBuffer.allocate(e.length);
+                readFully(in, record, e.offset);
+                record.flip();
+                moved.put(e.offset, written);
+                written += writeFully(out, record, written);
+            }
+            out.force(false);
+        }
+
+        synchronized (this) {
+            // Opened before the move and still the same file after it, so the
+            // old channel is only given up once the new log is in place
+            FileChannel compacted = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long copied = 0;
+                while (copied < end - snapshotEnd) {
+                    copied += channel.transferTo(snapshotEnd + copied, end - snapshotEnd - copied,
+                        compacted.position(written + copied));
+                }
+                compacted.force(false);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                compacted.close();
+                throw e;
+            }
+            long shift = written - snapshotEnd;
+            FileChannel old = channel;
+            channel = compacted;
+            end = channel.size();
+            try {
+                old.close();
+            } catch (IOException e) {
+                System.err.println("Plan store " + file + ": could not close the old log: " + e);
+            }
+
+            // The latest plans are also in byVersion, so this moves every indexed entry once
+            List<Entry> all = new ArrayList<>(byVersion.values());
+            all.addAll(checkpointEntries.values());
+            long liveBytes = 0;
+            for (Entry e : all) {
+                e.offset = e.offset >= snapshotEnd ? e.offset + shift : moved.get(e.offset);
+                liveBytes += e.length;
+            }
+            deadBytes = end - HEADER_SIZE - dictionaryBytes - liveBytes;
+        }
+    }
+
+    // ── Log records ────────────────────────────
+
+    private void replay() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT) {
+            throw new IOException(file + " is not a plan store");
+        }
+
+        long size = channel.size();
+        long pos = HEADER_SIZE;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (pos + RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            readFully(channel, recordHeader, pos);
+            recordHeader.flip();
+            int length = recordHeader.getInt();
+            int crc = recordHeader.getInt();
+            if (length <= 0 || pos + RECORD_HEADER_SIZE + length > size) break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, pos + RECORD_HEADER_SIZE);
+            payload.flip();
+            if (crc(payload) != crc) break;
+
+            Entry entry = new Entry(pos, RECORD_HEADER_SIZE + length);
+            byte type = payload.get();
+            if (type == PLAN) {
+                String student = getString(payload);
+                indexPlan(student, payload.getInt(), entry);
+            } else if (type == CHECKPOINT) {
+                String batch = getString(payload);
+                indexCheckpoint(batch, payload.getLong(), entry);
+            } else if (type == CODE) {
+                int id = payload.getChar();
+                String code = getString(payload);
+                if (id != codes.size()) throw new IOException("Corrupt code dictionary in " + file);
+                codes.add(code);
+                codeIds.put(code, id);
+                dictionaryBytes += entry.length;
+            } else {
+                break;
+            }
+            pos += entry.length;
+        }
+
+        if (pos < size) {
+            System.err.println("Plan store " + file + ": dropping " + (size - pos) + " bytes of incomplete records");
+            channel.truncate(pos);
+        }
+        end = pos;
+    }
+
+    private void indexPlan(String studentId, int catalogVersion, Entry entry) {
+        Entry old = byVersion.put(versionKey(studentId, catalogVersion), entry);
+        if (old != null) deadBytes += old.length;
+        latest.put(studentId, entry);
+    }
+
+    private void indexCheckpoint(String batchId, long position, Entry entry) {
+        Entry old = checkpointEntries.remove(batchId);
+        if (old != null) deadBytes += old.length;
+        if (position < 0) {
+            // A cleared checkpoint is only needed until the next compaction
+            checkpoints.remove(batchId);
+            deadBytes += entry.length;
+        } else {
+            checkpoints.put(batchId, position);
+            checkpointEntries.put(batchId, entry);
+        }
+    }
+
+    private int codeId(String code) throws IOException {
+        Integer id = codeIds.get(code);
+        if (id != null) return id;
+        if (codes.size() > Character.MAX_VALUE) throw new IOException("Too many course codes in " + file);
+        int newId = codes.size();
+        Entry entry = append(codePayload(newId, code));
+        codes.add(code);
+        codeIds.put(code, newId);
+        dictionaryBytes += entry.length;
+        return newId;
+    }
+
+    private static ByteBuffer codePayload(int id, String code) {
+        byte[] bytes = utf8(code);
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 + 2 + bytes.length);
+        payload.put(CODE);
+        payload.putChar((char) id);
+        putString(payload, bytes);
+        payload.flip();
+        return payload;
+    }
+
+    private StoredPlan decodePlan(ByteBuffer payload) throws IOException {
+        if (payload.get() != PLAN) throw new IOException("Index of " + file + " does not point to a plan");
+        String student = getString(payload);
+        int catalogVersion = payload.getInt();
+        long created = payload.getLong();
+        int years = payload.get();
+        Season[] seasons = new Season[payload.get()];
+        for (int i = 0; i < seasons.length; i++) seasons[i] = Season.values()[payload.get()];
+        TermCalendar calendar = new TermCalendar(years, seasons);
+
+        List<List<String>> terms = new ArrayList<>(calendar.size());
+        for (int t = 0; t < calendar.size(); t++) {
+            int count = payload.get() & 0xFF;
+            List<String> term = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) term.add(codes.get(payload.getChar()));
+            terms.add(term);
+        }
+        return new StoredPlan(student, catalogVersion, created, calendar, terms);
+    }
+
+    private Entry append(ByteBuffer payload) throws IOException {
+        long offset = end;
+        int length = writeRecord(channel, payload, offset);
+        end += length;
+        return new Entry(offset, length);
+    }
+
+    private static int writeRecord(FileChannel out, ByteBuffer payload, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        header.putInt(payload.remaining()).putInt(crc(payload));
+        header.flip();
+        int length = header.remaining() + payload.remaining();
+        out.position(position);
+        ByteBuffer[] buffers = {header, payload};
+        while (payload.hasRemaining()) out.write(buffers);
+        return length;
+    }
+
+    // Payload of a record, checked against its CRC
+    private ByteBuffer read(FileChannel in, Entry entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(entry.length);
+        readFully(in, record, entry.offset);
+        record.flip();
+        int length = record.getInt();
+        int crc = record.getInt();
+        if (length != entry.length - RECORD_HEADER_SIZE || crc(record) != crc) {
+            throw new IOException("Corrupt record at " + entry.offset + " in " + file);
+        }
+        return record;
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) position += out.write(buffer, position);
+        return length;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = in.read(buffer, position);
+            if (n < 0) throw new IOException("Unexpected end of plan store");
+            position += n;
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Character.MAX_VALUE) throw new IllegalArgumentException("String too long: " + s);
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putChar((char) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getChar()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String versionKey(String studentId, int catalogVersion) {
+        return studentId + '\0' + catalogVersion;
+    }
+
+    /**
+     * Flushes the log to disk.
+     */
+    public synchronized void flush() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Waits for a running compaction, then closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running != null) {
+            try {
+                running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Already logged by compact(); the old log is still in use
+            }
+        }
+        compactor.shutdown();
+        synchronized (this) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,694 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Runs a corpus of student scenarios through FourYearPlanner, CoursePlanner and
+ * DAG and compares them with what they produced before:
+ *
+ *   - the plan and requirement outcome of every scenario must match its golden copy;
+ *   - the bytes allocated per run must stay within a tolerance of the stored
+ *     baseline;
+ *   - so should the latency, but timings are noisy on a shared machine, so a
+ *     slower scenario is only a warning unless --strict-latency is given.
+ *
+ * Everything it needs is in the regression directory (scenarios.txt, golden.txt,
+ * baseline.txt and the catalogs the scenarios point to), so it runs offline.
+ * Exits with 0 when nothing regressed, 1 on a regression and 2 on bad input.
+ *
+ * Usage: java PlannerRegressionHarness [options]
+ *   --scenarios=FILE          scenario file (default regression/scenarios.txt)
+ *   --update                  accept the current plans and timings as the new golden/baseline
+ *   --plans-only              only compare plans, skip timing
+ *   --runs=N                  measured runs per scenario (default 50, after as many warm-up runs)
+ *   --latency-tolerance=X     allowed latency growth, 0.5 = +50% (default 0.5)
+ *   --alloc-tolerance=X       allowed allocation growth (default 0.1)
+ *   --strict-latency          fail on a latency regression instead of warning
+ */
+public class PlannerRegressionHarness {
+    // Differences below these are noise, whatever the percentage
+    private static final double MIN_LATENCY_MICROS = 50;
+    private static final long MIN_ALLOC_BYTES = 4096;
+    // Latency is the fastest of this many batch medians, so one GC or busy batch does not count
+    private static final int LATENCY_BATCHES = 5;
+
+    private static final int CODES_PER_LINE = 12;
+
+    /**
+     * One block of the scenario file: a [name] line followed by key = value lines.
+     */
+    private static class Scenario {
+        final String name;
+        final Map<String, String> props = new LinkedHashMap<>();
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        String get(String key, String defaultValue) {
+            return props.getOrDefault(key, defaultValue);
+        }
+
+        int getInt(String key, int defaultValue) {
+            String value = props.get(key);
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        }
+
+        // "CS 134; CS 136" → [CS 134, CS 136]
+        Set<String> getCodes(String key) {
+            Set<String> codes = new LinkedHashSet<>();
+            for (String code : get(key, "").split(";")) {
+                if (!code.trim().isEmpty()) codes.add(code.trim());
+            }
+            return codes;
+        }
+    }
+
+    /** Timing of one scenario. */
+    private static class Measurement {
+        final double medianMicros;   // lowest batch median
+        final long bytesPerRun;   // -1 if the JVM cannot count allocations
+
+        Measurement(double medianMicros, long bytesPerRun) {
+            this.medianMicros = medianMicros;
+            this.bytesPerRun = bytesPerRun;
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, CourseCatalog> catalogs = new HashMap<>();
+
+    public PlannerRegressionHarness(Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) {
+        Path scenarioFile = Paths.get("regression", "scenarios.txt");
+        boolean update = false;
+        boolean plansOnly = false;
+        int runs = 50;
+        double latencyTolerance = 0.5;
+        double allocTolerance = 0.1;
+        boolean strictLatency = false;
+
+        try {
+            for (String arg : args) {
+                if (arg.equals("--update")) update = true;
+                else if (arg.equals("--plans-only")) plansOnly = true;
+                else if (arg.equals("--strict-latency")) strictLatency = true;
+                else if (arg.startsWith("--scenarios=")) scenarioFile = Paths.get(valueOf(arg));
+                else if (arg.startsWith("--runs=")) runs = Integer.parseInt(valueOf(arg));
+                else if (arg.startsWith("--latency-tolerance=")) latencyTolerance = Double.parseDouble(valueOf(arg));
+                else if (arg.startsWith("--alloc-tolerance=")) allocTolerance = Double.parseDouble(valueOf(arg));
+                else throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            if (runs < 1) throw new IllegalArgumentException("--runs must be at least 1");
+
+            Path directory = scenarioFile.toAbsolutePath().getParent();
+            PlannerRegressionHarness harness = new PlannerRegressionHarness(directory);
+            List<Scenario> scenarios = readScenarios(scenarioFile);
+            boolean passed = harness.run(scenarios, update, plansOnly, runs,
+                latencyTolerance, allocTolerance, strictLatency);
+            System.exit(passed ? 0 : 1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static String valueOf(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    /**
+     * Runs every scenario, prints a report and, with update, rewrites golden.txt
+     * and baseline.txt.
+     *
+     * @return true if no plan changed, no allocation grew and, with strictLatency,
+     *         no latency regressed.
+     */
+    boolean run(List<Scenario> scenarios, boolean update, boolean plansOnly, int runs,
+                double latencyTolerance, double allocTolerance, boolean strictLatency) throws IOException {
+        Path goldenFile = directory.resolve("golden.txt");
+        Path baselineFile = directory.resolve("baseline.txt");
+        Map<String, List<String>> golden = readBlocks(goldenFile);
+        Map<String, Measurement> baseline = readBaseline(baselineFile);
+
+        Map<String, List<String>> outcomes = new LinkedHashMap<>();
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+
+        // Warm up every scenario first, so the first ones are not timed while the JIT still compiles the planners
+        if (!plansOnly) {
+            for (Scenario s : scenarios) {
+                if (!isTimed(s)) continue;
+                for (int i = 0; i < runs; i++) outcome(s);
+            }
+        }
+
+        System.out.printf("%-28s %12s %8s %12s %8s  %s%n", "scenario", "median us", "change", "KB/run", "change", "result");
+        for (Scenario s : scenarios) {
+            List<String> outcome = outcome(s);
+            outcomes.put(s.name, outcome);
+
+            List<String> problems = new ArrayList<>();
+            List<String> expected = golden.get(s.name);
+            if (expected == null) {
+                problems.add("no golden plan");
+            } else if (!expected.equals(outcome)) {
+                problems.add("plan changed: " + firstDifference(expected, outcome));
+            }
+
+            String latencyDelta = "", allocDelta = "";
+            Measurement m = null;
+            if (!plansOnly && isTimed(s)) {
+                m = measure(s, runs);
+                Measurement base = baseline.get(s.name);
+                measurements.put(s.name, m);
+                if (base != null) {
+                    latencyDelta = percent(m.medianMicros, base.medianMicros);
+                    if (tooSlow(m, base, latencyTolerance)) {
+                        String slower = String.format("latency %.1f us, baseline %.1f us", m.medianMicros, base.medianMicros);
+                        if (strictLatency) problems.add(slower);
+                        else warnings.add(s.name + ": " + slower);
+                    }
+                    if (m.bytesPerRun >= 0 && base.bytesPerRun >= 0) {
+                        allocDelta = percent(m.bytesPerRun, base.bytesPerRun);
+                        if (m.bytesPerRun > base.bytesPerRun * (1 + allocTolerance)
+                                && m.bytesPerRun - base.bytesPerRun > MIN_ALLOC_BYTES) {
+                            problems.add("allocation " + m.bytesPerRun + " bytes, baseline " + base.bytesPerRun);
+                        }
+                    }
+                } else {
+                    problems.add("no baseline");
+                }
+            }
+
+            System.out.printf("%-28s %12s %8s %12s %8s  %s%n", s.name,
+                m == null ? "-" : String.format("%.1f", m.medianMicros), latencyDelta,
+                m == null || m.bytesPerRun < 0 ? "-" : String.format("%.1f", m.bytesPerRun / 1024.0), allocDelta,
+                problems.isEmpty() ? "ok" : (update ? "updated" : "FAIL"));
+            for (String p : problems) failures.add(s.name + ": " + p);
+        }
+
+        if (update) {
+            writeBlocks(goldenFile, outcomes);
+            if (!plansOnly) writeBaseline(baselineFile, measurements);
+            System.out.println("Updated " + goldenFile.getFileName()
+                + (plansOnly ? "" : " and " + baselineFile.getFileName()));
+            return true;
+        }
+
+        if (!warnings.isEmpty()) {
+            System.out.println();
+            System.out.println(warnings.size() + " latency warning(s), not failing without --strict-latency:");
+            for (String w : warnings) System.out.println("  " + w);
+        }
+        if (failures.isEmpty()) {
+            System.out.println(scenarios.size() + " scenarios passed");
+            return true;
+        }
+        System.out.println();
+        System.out.println(failures.size() + " regression(s):");
+        for (String f : failures) System.out.println("  " + f);
+        System.out.println("If the changes are intended, rerun with --update.");
+        return false;
+    }
+
+    // An improve scenario runs for its time budget on every core, so it has no
+    // latency of its own and would only slow down the JIT for the others; store
+    // and export scenarios mostly time the disk
+    private static boolean isTimed(Scenario s) {
+        String kind = s.get("planner", "course");
+        return !kind.equals("improve") && !kind.equals("store") && !kind.equals("export");
+    }
+
+    // S00, S01, ...
+    private static List<String> studentIds(int students) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < students; i++) ids.add(String.format("S%02d", i));
+        return ids;
+    }
+
+    // FourYearPlanner plan of a generated student. Students differ in how many
+    // terms they have completed, so their plans differ too.
+    private static Function<String, SchedulePlan> cohortPlanner(Scenario s, CourseCatalog catalog, TermCalendar calendar) {
+        FourYearPlanner planner = new FourYearPlanner(catalog, calendar);
+        Map<Integer, SchedulePlan> plans = new HashMap<>();
+        return id -> plans.computeIfAbsent(
+            Integer.parseInt(id.substring(1)) % calendar.termsPerYear(),
+            completed -> planner.generateSchedulePlan(seasonPreferences(s), fiveCourseTerms(s), s.getCodes("taken"), completed));
+    }
+
+    /**
+     * Runs a batch of FourYearPlanner plans into a fresh PlanStore, interrupts it
+     * at student 'interruptAt', reopens the store and resumes the batch, then
+     * reads back where every batch stands and the latest plan of every student.
+     */
+    private List<String> storeOutcome(Scenario s, CourseCatalog catalog, TermCalendar calendar) throws IOException {
+        int students = s.getInt("students", 12);
+        int checkpointEvery = s.getInt("checkpointEvery", 4);
+        int interruptAt = s.getInt("interruptAt", -1);
+        if (interruptAt >= students) throw new IllegalArgumentException(s.name + ": interruptAt must be below students");
+        List<String> ids = studentIds(students);
+        Function<String, SchedulePlan> planOf = cohortPlanner(s, catalog, calendar);
+
+        List<String> lines = new ArrayList<>();
+        Path file = Files.createTempFile("regression-plans", ".log");
+        try {
+            try (PlanStore store = new PlanStore(file)) {
+                store.runBatch("batch", ids, 1, id -> {
+                    if (interruptAt >= 0 && id.equals(ids.get(interruptAt))) {
+                        throw new IllegalStateException("interrupted at " + id);
+                    }
+                    return planOf.apply(id);
+                }, checkpointEvery);
+                lines.add("first run finished");
+            } catch (IllegalStateException e) {
+                lines.add("first run " + e.getMessage());
+            }
+
+            try (PlanStore store = new PlanStore(file)) {
+                lines.add("reopened: resume at " + store.resumePosition("batch") + ", " + store.students().size() + " students stored");
+                int planned = store.runBatch("batch", ids, 1, planOf, checkpointEvery);
+                lines.add("resumed: planned " + planned + ", resume at " + store.resumePosition("batch")
+                    + ", rerun plans " + store.runBatch("batch", ids, 1, planOf, checkpointEvery));
+            }
+
+            try (PlanStore store = new PlanStore(file)) {
+                int matching = 0;
+                for (String id : ids) {
+                    StoredPlan stored = store.latest(id);
+                    if (stored != null && stored.toSchedulePlan(catalog).toString().equals(planOf.apply(id).toString())) matching++;
+                }
+                lines.add("read back: " + store.students().size() + " students, " + matching + " plans as written");
+                for (String id : store.students()) lines.add(store.latest(id).toString());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return lines;
+    }
+
+    /**
+     * Exports the plans of a generated cohort to a columnar file and a JSONL file,
+     * then reads the columnar file back twice: group by group for the rows of each
+     * term, and with scan() to decode every plan and compare it with what was written.
+     */
+    private List<String> exportOutcome(Scenario s, CourseCatalog catalog, TermCalendar calendar) throws IOException {
+        List<String> ids = studentIds(s.getInt("students", 12));
+        Function<String, SchedulePlan> planOf = cohortPlanner(s, catalog, calendar);
+
+        List<String> lines = new ArrayList<>();
+        Path columns = Files.createTempFile("regression-plans", ".plans");
+        Path jsonl = Files.createTempFile("regression-plans", ".jsonl");
+        try {
+            try (PlanExporter columnar = new ColumnarPlanExporter(columns);
+                 PlanExporter json = new JsonlPlanExporter(jsonl)) {
+                for (String id : ids) {
+                    columnar.write(id, 1, planOf.apply(id));
+                    json.write(id, 1, planOf.apply(id));
+                }
+                lines.add("exported: " + columnar.planCount() + " plans, " + columnar.rowCount() + " rows");
+            }
+            lines.add("jsonl: " + Files.readAllLines(jsonl, StandardCharsets.UTF_8).size() + " lines");
+
+            int groups = 0;
+            long rows = 0;
+            int[] rowsPerTerm = new int[calendar.size()];
+            try (PlanColumnReader reader = new PlanColumnReader(columns)) {
+                while (reader.nextGroup()) {
+                    groups++;
+                    rows += reader.rowCount();
+                    for (int row = 0; row < reader.rowCount(); row++) rowsPerTerm[reader.termAt(row)]++;
+                }
+                lines.add("read: " + groups + " row groups, " + rows + " rows, " + reader.codeCount() + " course codes");
+            }
+            StringBuilder perTerm = new StringBuilder("rows per term:");
+            for (int t = 0; t < rowsPerTerm.length; t++) {
+                perTerm.append(t == 0 ? " " : ", ").append(calendar.label(t)).append('=').append(rowsPerTerm[t]);
+            }
+            lines.add(perTerm.toString());
+
+            // "term code" for every row of each student
+            Map<String, List<String>> decoded = new HashMap<>();
+            long scanned;
+            try (PlanColumnReader reader = new PlanColumnReader(columns)) {
+                scanned = reader.scan((studentId, catalogVersion, term, course) ->
+                    decoded.computeIfAbsent(studentId, k -> new ArrayList<>()).add(term + " " + reader.code(course)));
+            }
+            int matching = 0;
+            for (String id : ids) {
+                SchedulePlan plan = planOf.apply(id);
+                List<String> written = new ArrayList<>();
+                for (int t = 0; t < plan.termCount(); t++) {
+                    for (String code : plan.codesIn(t)) written.add(t + " " + code);
+                }
+                if (written.equals(decoded.get(id))) matching++;
+            }
+            lines.add("scanned: " + scanned + " rows, " + matching + " of " + ids.size() + " plans decoded as written");
+        } finally {
+            Files.deleteIfExists(columns);
+            Files.deleteIfExists(jsonl);
+        }
+        return lines;
+    }
+
+    /**
+     * @return The lines compared with the golden copy: the plan term by term and
+     *         what happened to the required courses.
+     */
+    List<String> outcome(Scenario s) throws IOException {
+        CourseCatalog catalog = catalogOf(s);
+        TermCalendar calendar = calendarOf(s);
+        Set<String> required = s.getCodes("required");
+        List<String> lines = new ArrayList<>();
+
+        String kind = s.get("planner", "course");
+        Map<String, List<CourseData>> plan;
+        FeasibilityReport feasibility;
+
+        if (kind.equals("graph")) {
+            DAG graph = CoursePlanner.buildGraph(catalog);
+            List<String> order = graph.getCourseOrder();
+            for (int i = 0; i < order.size(); i += CODES_PER_LINE) {
+                lines.add("order: " + String.join(", ", order.subList(i, Math.min(order.size(), i + CODES_PER_LINE))));
+            }
+            List<List<String>> cycles = graph.findCycles();
+            lines.add("cycles: " + (cycles.isEmpty() ? "none" : cycles.toString()));
+            return lines;
+        } else if (kind.equals("impact")) {
+            // Failure impact of every course of the FourYearPlanner plan, most load-bearing first
+            Set<String> taken = s.getCodes("taken");
+            Set<Integer> fiveCourseTerms = fiveCourseTerms(s);
+            Map<String, List<CourseData>> schedule = new FourYearPlanner(catalog, calendar).generatePlan(
+                s.getCodes("preferFall"), s.getCodes("preferSpring"), fiveCourseTerms, taken, s.getInt("completed", 0));
+            for (CourseImpact impact : new ImpactAnalyzer(catalog, calendar).analyze(schedule, fiveCourseTerms, taken)) {
+                lines.add(impact.toString());
+            }
+            return lines;
+        } else if (kind.equals("improve")) {
+            // Seeded annealing on the FourYearPlanner plan: it must keep the planner's rules
+            // and never score below the plan it started from. The plans themselves depend on
+            // the time budget and the number of cores, so only these checks are compared.
+            Map<String, Season> prefs = seasonPreferences(s);
+            Set<String> taken = s.getCodes("taken");
+            Set<Integer> fiveCourseTerms = fiveCourseTerms(s);
+            int completed = s.getInt("completed", 0);
+            Map<String, List<CourseData>> greedy = new FourYearPlanner(catalog, calendar)
+                .generateSchedulePlan(prefs, fiveCourseTerms, taken, completed).toLabelMap();
+            PlanImprover improver = new PlanImprover(catalog, calendar);
+            Map<String, List<CourseData>> improved = improver.improveFourYearPlan(greedy, prefs,
+                fiveCourseTerms, taken, completed, s.getInt("budget", 100), s.getInt("seed", 1));
+
+            lines.add("greedy rule violations: " + describe(ruleViolations(catalog, calendar, greedy, prefs, fiveCourseTerms, taken, completed)));
+            lines.add("improved rule violations: " + describe(ruleViolations(catalog, calendar, improved, prefs, fiveCourseTerms, taken, completed)));
+            boolean notWorse = improver.scoreFourYearPlan(improved, taken) >= improver.scoreFourYearPlan(greedy, taken) - 1e-9;
+            lines.add("improved score " + (notWorse ? ">=" : "<") + " greedy score");
+            return lines;
+        } else if (kind.equals("store")) {
+            return storeOutcome(s, catalog, calendar);
+        } else if (kind.equals("export")) {
+            return exportOutcome(s, catalog, calendar);
+        } else if (kind.equals("fouryear")) {
+            FourYearPlanner planner = new FourYearPlanner(catalog, calendar);
+            Set<String> preferFall = s.getCodes("preferFall");
+            Set<String> preferSpring = s.getCodes("preferSpring");
+            Set<String> taken = s.getCodes("taken");
+            int completed = s.getInt("completed", 0);
+            plan = planner.generatePlan(preferFall, preferSpring, fiveCourseTerms(s), taken, completed);
+            feasibility = planner.checkFeasibility(required, preferFall, preferSpring, taken, completed);
+        } else if (kind.equals("course") || kind.equals("overlay")) {
+            CoursePlanner planner = new CoursePlanner(catalog, s.getInt("max", 4), calendar);
+            Map<String, String> prefs = preferences(s);
+            if (kind.equals("overlay")) {
+                plan = planner.plan(overlayOf(s, catalog), prefs).toLabelMap();
+            } else {
+                plan = planner.plan(required, s.getCodes("electives"), prefs).toLabelMap();
+            }
+            feasibility = planner.getLastFeasibility();
+        } else {
+            throw new IllegalArgumentException(s.name + ": unknown planner " + kind);
+        }
+
+        Set<String> placed = new HashSet<>();
+        for (Map.Entry<String, List<CourseData>> term : plan.entrySet()) {
+            List<String> codes = new ArrayList<>();
+            for (CourseData cd : term.getValue()) codes.add(cd.courseCode);
+            placed.addAll(codes);
+            lines.add(term.getKey() + ": " + (codes.isEmpty() ? "-" : String.join(", ", codes)));
+        }
+
+        Set<String> missing = new TreeSet<>(required);
+        missing.removeAll(placed);
+        missing.removeAll(s.getCodes("taken"));
+        lines.add("feasibility: " + (feasibility == null ? "-" : feasibility.toString()));
+        lines.add("required placed: " + (required.size() - missing.size()) + " of " + required.size()
+            + (missing.isEmpty() ? "" : ", missing " + String.join(", ", missing)));
+        return lines;
+    }
+
+    /**
+     * Times the scenario. The runs are split into batches and latency is the
+     * lowest batch median, which a GC pause or another process can only push
+     * up for one batch. Allocation is the average bytes of one run over all
+     * threads: planners that split work across a pool (ImpactAnalyzer) leave a
+     * different share on this thread every run.
+     */
+    Measurement measure(Scenario s, int runs) throws IOException {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        int batches = Math.min(LATENCY_BATCHES, runs);
+        long[] nanos = new long[runs];
+        long bytesBefore = threads == null ? 0 : allocatedBytes(threads);
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            outcome(s);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long bytes = threads == null ? -1 : (allocatedBytes(threads) - bytesBefore) / runs;
+
+        long fastest = Long.MAX_VALUE;
+        for (int b = 0; b < batches; b++) {
+            int from = b * runs / batches, to = (b + 1) * runs / batches;
+            Arrays.sort(nanos, from, to);
+            fastest = Math.min(fastest, nanos[(from + to) / 2]);
+        }
+        return new Measurement(fastest / 1000.0, bytes);
+    }
+
+    // Bytes allocated so far by the live threads
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    // Catalogs are loaded once; loading is not part of what is timed
+    private CourseCatalog catalogOf(Scenario s) throws IOException {
+        Path file = directory.resolve(s.get("catalog", "../sample_courses_with_seasons.csv")).normalize();
+        CourseCatalog catalog = catalogs.get(file.toString());
+        if (catalog == null) {
+            if (!Files.exists(file)) throw new FileNotFoundException(s.name + ": no catalog " + file);
+            catalog = new CourseCatalog();
+            catalog.loadFromCSV(file.toString());
+            catalogs.put(file.toString(), catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * @return What breaks FourYearPlanner's rules in the plan: a course planned twice or
+     *         already taken, out of its season or preferred season, before its prerequisites,
+     *         in a full term or over the CS courses allowed in a term.
+     */
+    static List<String> ruleViolations(CourseCatalog catalog, TermCalendar calendar,
+                                       Map<String, List<CourseData>> plan, Map<String, Season> prefs,
+                                       Set<Integer> fiveCourseTerms, Set<String> taken, int completed) {
+        List<String> problems = new ArrayList<>();
+        long[] done = CourseBits.create(catalog.size());
+        for (String code : taken) {
+            int idx = catalog.indexOf(code);
+            if (idx >= 0) CourseBits.set(done, idx);
+        }
+        int t = 0;
+        for (Map.Entry<String, List<CourseData>> term : plan.entrySet()) {
+            List<CourseData> courses = term.getValue();
+            int limit = fiveCourseTerms.contains(t) ? 5 : 4;
+            if (t >= completed && courses.size() > limit) problems.add(term.getKey() + " has " + courses.size() + " courses");
+            int cs = 0;
+            for (CourseData cd : courses) {
+                if (FourYearPlanner.isCSCourse(cd.courseCode)) cs++;
+                if (CourseBits.get(done, cd.index)) problems.add(cd.courseCode + " is planned twice or already taken");
+                if (!calendar.isOffered(cd, t)) problems.add(cd.courseCode + " is not offered in " + term.getKey());
+                Season preferred = prefs.get(cd.courseCode);
+                if (preferred != null && preferred != calendar.seasonOf(t)) problems.add(cd.courseCode + " is not in " + preferred);
+                if (!cd.prerequisiteExpr.isSatisfiedBy(done)) problems.add(cd.courseCode + " comes before its prerequisites");
+            }
+            if (cs > FourYearPlanner.maxCSCourses(calendar, t)) problems.add(term.getKey() + " has " + cs + " CS courses");
+            for (CourseData cd : courses) CourseBits.set(done, cd.index);
+            t++;
+        }
+        return problems;
+    }
+
+    private static String describe(List<String> problems) {
+        return problems.isEmpty() ? "none" : String.join("; ", problems);
+    }
+
+    // preferFall and preferSpring as one season per course
+    private static Map<String, Season> seasonPreferences(Scenario s) {
+        Map<String, Season> prefs = new HashMap<>();
+        for (String code : s.getCodes("preferFall")) prefs.put(code, Season.FALL);
+        for (String code : s.getCodes("preferSpring")) prefs.put(code, Season.SPRING);
+        return prefs;
+    }
+
+    // "semesters 4", "quarters 3", "semestersWithSummer 4"
+    private static TermCalendar calendarOf(Scenario s) {
+        String[] parts = s.get("calendar", "semesters 4").trim().split("\\s+");
+        int years = parts.length > 1 ? Integer.parseInt(parts[1]) : 4;
+        switch (parts[0]) {
+            case "semesters": return TermCalendar.semesters(years);
+            case "quarters": return TermCalendar.quarters(years);
+            case "semestersWithSummer": return TermCalendar.semestersWithSummer(years);
+            default: throw new IllegalArgumentException(s.name + ": unknown calendar " + parts[0]);
+        }
+    }
+
+    // "CS 136=Spring; PSY 101=Fall"
+    private static Map<String, String> preferences(Scenario s) {
+        Map<String, String> prefs = new HashMap<>();
+        for (String pref : s.getCodes("prefer")) {
+            int eq = pref.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException(s.name + ": preference without season: " + pref);
+            prefs.put(pref.substring(0, eq).trim(), pref.substring(eq + 1).trim());
+        }
+        return prefs;
+    }
+
+    private static Set<Integer> fiveCourseTerms(Scenario s) {
+        Set<Integer> terms = new HashSet<>();
+        for (String t : s.getCodes("fiveCourseTerms")) terms.add(Integer.parseInt(t));
+        return terms;
+    }
+
+    // quota = CS 1 2; MATH 2 3   and   extraPrerequisite = CS 334>MATH 102
+    private static MajorOverlay overlayOf(Scenario s, CourseCatalog catalog) {
+        MajorOverlay overlay = new MajorOverlay(catalog, s.name, s.getCodes("required"), s.getCodes("electives"));
+        for (String quota : s.getCodes("quota")) {
+            String[] parts = quota.trim().split("\\s+");
+            overlay.addQuota(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        }
+        for (String prereq : s.getCodes("extraPrerequisite")) {
+            String[] parts = prereq.split(">");
+            overlay.addPrerequisite(parts[0].trim(), parts[1].trim());
+        }
+        return overlay;
+    }
+
+    private static boolean tooSlow(Measurement m, Measurement base, double tolerance) {
+        return m.medianMicros > base.medianMicros * (1 + tolerance)
+            && m.medianMicros - base.medianMicros > MIN_LATENCY_MICROS;
+    }
+
+    private static String firstDifference(List<String> expected, List<String> actual) {
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            String e = i < expected.size() ? expected.get(i) : "(nothing)";
+            String a = i < actual.size() ? actual.get(i) : "(nothing)";
+            if (!e.equals(a)) return "expected \"" + e + "\", got \"" + a + "\"";
+        }
+        return "";
+    }
+
+    private static String percent(double now, double before) {
+        if (before <= 0) return "";
+        return String.format("%+.0f%%", (now - before) * 100 / before);
+    }
+
+    static List<Scenario> readScenarios(Path file) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>();
+        Scenario current = null;
+        int lineNo = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNo++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                current = new Scenario(trimmed.substring(1, trimmed.length() - 1).trim());
+                scenarios.add(current);
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (current == null || eq < 0) {
+                throw new IllegalArgumentException(file.getFileName() + " line " + lineNo + ": expected [name] or key = value");
+            }
+            current.props.put(trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim());
+        }
+        return scenarios;
+    }
+
+    // golden.txt: a [name] line, then the outcome lines of that scenario
+    private static Map<String, List<String>> readBlocks(Path file) throws IOException {
+        Map<String, List<String>> blocks = new LinkedHashMap<>();
+        if (!Files.exists(file)) return blocks;
+        List<String> current = null;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith("[") && line.endsWith("]")) {
+                current = new ArrayList<>();
+                blocks.put(line.substring(1, line.length() - 1), current);
+            } else if (current != null && !line.isEmpty()) {
+                current.add(line);
+            }
+        }
+        return blocks;
+    }
+
+    private static void writeBlocks(Path file, Map<String, List<String>> blocks) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# Expected outcome of every scenario. Written by PlannerRegressionHarness --update.");
+            for (Map.Entry<String, List<String>> block : blocks.entrySet()) {
+                out.println();
+                out.println("[" + block.getKey() + "]");
+                for (String line : block.getValue()) out.println(line);
+            }
+        }
+    }
+
+    // baseline.txt: scenario name, tab, median µs, tab, bytes per run
+    private static Map<String, Measurement> readBaseline(Path file) throws IOException {
+        Map<String, Measurement> baseline = new HashMap<>();
+        if (!Files.exists(file)) return baseline;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] cols = line.split("\t");
+            baseline.put(cols[0], new Measurement(Double.parseDouble(cols[1]), Long.parseLong(cols[2])));
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path file, Map<String, Measurement> measurements) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# scenario\tmedian us\tbytes per run. Written by PlannerRegressionHarness --update;");
+            out.println("# timings depend on the machine, so update it on the machine that runs the checks.");
+            for (Map.Entry<String, Measurement> m : measurements.entrySet()) {
+                out.println(m.getKey() + "\t" + String.format(Locale.ROOT, "%.1f", m.getValue().medianMicros)
+                    + "\t" + m.getValue().bytesPerRun);
+            }
+        }
+    }
+}
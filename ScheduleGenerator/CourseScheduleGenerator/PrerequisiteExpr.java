@@ -0,0 +1,206 @@
+import java.util.*;
+
+/**
+ * Prerequisite expression of a course, kept as an AND of OR-groups.
+ *
+ * Accepted syntax in the prerequisites column:
+ *   "CS 237;CS 256"              → CS 237 and CS 256
+ *   "CS 136 or MATH 200"         → one of the two
+ *   "CS 136|MATH 200"            → same as above
+ *   "one of CS 136, CS 134"      → one of the listed courses
+ *   "(CS 136 or MATH 200);CS 237" → groups can be mixed with ';' or " and "
+ *
+ * After the catalog assigns an index to every course, the expression is compiled
+ * into two int arrays so it can be checked against a completed-course bitset
+ * (see CourseBits) without allocating.
+ */
+public class PrerequisiteExpr {
+
+    private static final PrerequisiteExpr NONE = new PrerequisiteExpr(new ArrayList<>());
+
+    // Each inner list is an OR-group; the expression holds when every group holds.
+    private final List<List<String>> groups;
+
+    // Compiled form: terms[groupEnds[g-1] .. groupEnds[g]) are the course indexes of group g.
+    private int[] groupEnds;
+    private int[] terms;
+
+    private PrerequisiteExpr(List<List<String>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Parses the text of a prerequisites column.
+     *
+     * @param text Raw column value (may be empty).
+     * @return Parsed expression, never null.
+     */
+    public static PrerequisiteExpr parse(String text) {
+        return parse(null, text);
+    }
+
+    /**
+     * Same as parse(text), naming the course in the error message.
+     *
+     * @throws IllegalArgumentException if parentheses do not enclose exactly one
+     *         OR-group (e.g. "(A and B) or C"), which the AND-of-OR form cannot express.
+     */
+    public static PrerequisiteExpr parse(String course, String text) {
+        if (text == null || text.trim().isEmpty()) return NONE;
+
+        List<List<String>> groups = new ArrayList<>();
+        for (String rawGroup : text.split(";|(?i)\\s+and\\s+")) {
+            String group = stripParens(rawGroup.trim());
+            if (group.isEmpty()) continue;
+
+            String[] alternatives;
+            if (group.toLowerCase().startsWith("one of ")) {
+                alternatives = group.substring("one of ".length()).split(",|\\||(?i)\\s+or\\s+");
+            } else {
+                alternatives = group.split("\\||(?i)\\s+or\\s+");
+            }
+
+            List<String> codes = new ArrayList<>();
+            for (String alt : alternatives) {
+                String code = stripParens(alt.trim());
+                // Anything left in parentheses was nested or unbalanced, not a course code
+                if (code.indexOf('(') >= 0 || code.indexOf(')') >= 0) {
+                    throw new IllegalArgumentException((course == null ? "" : "Course " + course + ": ")
+                        + "unsupported prerequisite expression \"" + text.trim()
+                        + "\": parentheses may only enclose one OR-group, as in \"(A or B);C\"");
+                }
+                if (!code.isEmpty() && !codes.contains(code)) codes.add(code);
+            }
+            if (!codes.isEmpty()) groups.add(codes);
+        }
+        return groups.isEmpty() ? NONE : new PrerequisiteExpr(groups);
+    }
+
+    /**
+     * Builds a plain AND expression where every course is required.
+     */
+    public static PrerequisiteExpr allOf(List<String> codes) {
+        if (codes == null || codes.isEmpty()) return NONE;
+        List<List<String>> groups = new ArrayList<>();
+        for (String code : codes) {
+            groups.add(Collections.singletonList(code.trim()));
+        }
+        return new PrerequisiteExpr(groups);
+    }
+
+    private static String stripParens(String s) {
+        while (s.startsWith("(") && s.endsWith(")")) {
+            s = s.substring(1, s.length() - 1).trim();
+        }
+        return s;
+    }
+
+    /**
+     * @return The OR-groups of this expression. Must not be modified.
+     */
+    public List<List<String>> getGroups() {
+        return groups;
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * @return Every course mentioned in the expression, without duplicates.
+     */
+    public List<String> referencedCourses() {
+        List<String> codes = new ArrayList<>();
+        for (List<String> group : groups) {
+            for (String code : group) {
+                if (!codes.contains(code)) codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Compiles the expression against the catalog indexes.
+     * Courses missing from the catalog are dropped from their group,
+     * so a group made only of missing courses can never be satisfied.
+     *
+     * @param indexByCode Course code → catalog index.
+     */
+    public void compile(Map<String, Integer> indexByCode) {
+        int[] ends = new int[groups.size()];
+        int[] compiled = new int[referencedCount()];
+        int t = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            for (String code : groups.get(g)) {
+                Integer idx = indexByCode.get(code);
+                if (idx != null) compiled[t++] = idx;
+            }
+            ends[g] = t;
+        }
+        this.terms = Arrays.copyOf(compiled, t);
+        this.groupEnds = ends;
+    }
+
+    private int referencedCount() {
+        int n = 0;
+        for (List<String> group : groups) n += group.size();
+        return n;
+    }
+
+    public boolean isCompiled() {
+        return groupEnds != null;
+    }
+
+    /**
+     * Checks the compiled expression against a completed-course bitset.
+     * Runs without allocation and only branches on the loop bounds.
+     *
+     * @param completed Bitset indexed by catalog index (see CourseBits).
+     * @return true if every OR-group has at least one completed course.
+     */
+    public boolean isSatisfiedBy(long[] completed) {
+        long ok = 1L;
+        int t = 0;
+        for (int g = 0; g < groupEnds.length; g++) {
+            long any = 0L;
+            for (int end = groupEnds[g]; t < end; t++) {
+                int bit = terms[t];
+                any |= completed[bit >>> 6] >>> bit; // shift only uses the low 6 bits
+            }
+            ok &= any;
+        }
+        return (ok & 1L) != 0;
+    }
+
+    /**
+     * Same check as isSatisfiedBy(long[]) but over course codes,
+     * for callers that do not have catalog indexes.
+     */
+    public boolean isSatisfiedBy(Set<String> completed) {
+        for (List<String> group : groups) {
+            boolean any = false;
+            for (String code : group) {
+                if (completed.contains(code)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (List<String> group : groups) {
+            if (sb.length() > 0) sb.append(";");
+            if (group.size() == 1) {
+                sb.append(group.get(0));
+            } else {
+                sb.append("(").append(String.join(" or ", group)).append(")");
+            }
+        }
+        return sb.toString();
+    }
+}
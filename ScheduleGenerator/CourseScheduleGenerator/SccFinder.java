@@ -0,0 +1,144 @@
+import java.util.*;
+
+/**
+ * Iterative Tarjan's algorithm over a graph stored in CSR form
+ * (edges of node v are targets[offsets[v] .. offsets[v+1])).
+ * Runs in O(V + E) with explicit stacks, so very deep prerequisite chains
+ * cannot overflow the Java call stack.
+ */
+public final class SccFinder {
+
+    private SccFinder() {
+    }
+
+    /**
+     * Finds every strongly connected component that contains a cycle,
+     * i.e. components with more than one node or a node with a self-loop.
+     *
+     * @param n       Number of nodes.
+     * @param offsets CSR offsets, length n + 1.
+     * @param targets CSR edge targets.
+     * @return One array of node ids per cyclic component.
+     */
+    public static List<int[]> cyclicComponents(int n, int[] offsets, int[] targets) {
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int next = 0;
+
+        List<int[]> result = new ArrayList<>();
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = offsets[root];
+            index[root] = low[root] = next++;
+            stack[sp++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = callNode[depth];
+                int e = callEdge[depth];
+
+                if (e < offsets[v + 1]) {
+                    callEdge[depth] = e + 1;
+                    int w = targets[e];
+                    if (index[w] < 0) {
+                        // "Recursive call" on w
+                        index[w] = low[w] = next++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = offsets[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                // All edges of v done: close its component if v is a root
+                if (low[v] == index[v]) {
+                    int start = sp;
+                    do {
+                        start--;
+                        onStack[stack[start]] = false;
+                    } while (stack[start] != v);
+
+                    int size = sp - start;
+                    if (size > 1 || hasSelfLoop(v, offsets, targets)) {
+                        result.add(Arrays.copyOfRange(stack, start, sp));
+                    }
+                    sp = start;
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasSelfLoop(int v, int[] offsets, int[] targets) {
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+            if (targets[e] == v) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds one concrete cycle through the first node of a cyclic component,
+     * walking only inside the component (breadth-first, so the cycle is short).
+     *
+     * @return Node ids of the cycle, first node repeated at the end.
+     */
+    public static int[] cycleIn(int[] component, int[] offsets, int[] targets) {
+        int start = component[0];
+        Set<Integer> inComponent = new HashSet<>();
+        for (int v : component) inComponent.add(v);
+
+        Map<Integer, Integer> parent = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        int last = -1;
+
+        while (!queue.isEmpty() && last < 0) {
+            int v = queue.poll();
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (!inComponent.contains(w)) continue;
+                if (w == start) {
+                    last = v;
+                    break;
+                }
+                if (!parent.containsKey(w)) {
+                    parent.put(w, v);
+                    queue.add(w);
+                }
+            }
+        }
+
+        // Rebuild start → ... → last → start
+        ArrayDeque<Integer> path = new ArrayDeque<>();
+        path.addFirst(start);
+        for (int v = last; v != start; v = parent.get(v)) {
+            path.addFirst(v);
+        }
+        path.addFirst(start);
+
+        int[] cycle = new int[path.size()];
+        int i = 0;
+        for (int v : path) cycle[i++] = v;
+        return cycle;
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.*;
+
+/**
+ * A plan stored as arrays indexed by term: the catalog indexes of the courses
+ * of every term, in the order they were added. Labels and CourseData lists are
+ * only built when the plan is converted to one of the map shapes.
+ */
+public class SchedulePlan {
+    private final CourseCatalog catalog;
+    private final TermCalendar calendar;
+    private final int[][] courses;   // term → catalog indexes (first counts[term] are used)
+    private final int[] counts;
+
+    public SchedulePlan(CourseCatalog catalog, TermCalendar calendar) {
+        this.catalog = catalog;
+        this.calendar = calendar;
+        this.courses = new int[calendar.size()][];
+        this.counts = new int[calendar.size()];
+    }
+
+    /**
+     * Adds a course, by catalog index, at the end of a term.
+     */
+    public void add(int term, int courseIndex) {
+        int[] row = courses[term];
+        if (row == null) {
+            row = courses[term] = new int[4];
+        } else if (counts[term] == row.length) {
+            row = courses[term] = Arrays.copyOf(row, row.length * 2);
+        }
+        row[counts[term]++] = courseIndex;
+    }
+
+    public TermCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * @return Number of terms of the plan.
+     */
+    public int termCount() {
+        return counts.length;
+    }
+
+    /**
+     * @return Number of courses planned in the term.
+     */
+    public int count(int term) {
+        return counts[term];
+    }
+
+    /**
+     * @return Catalog index of the i-th course of the term.
+     */
+    public int courseAt(int term, int i) {
+        if (i >= counts[term]) throw new IndexOutOfBoundsException("Term " + term + " has " + counts[term] + " courses");
+        return courses[term][i];
+    }
+
+    public boolean contains(int term, int courseIndex) {
+        for (int i = 0; i < counts[term]; i++) {
+            if (courses[term][i] == courseIndex) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Term of the course, or -1 if it is not planned.
+     */
+    public int termOf(int courseIndex) {
+        for (int t = 0; t < counts.length; t++) {
+            if (contains(t, courseIndex)) return t;
+        }
+        return -1;
+    }
+
+    public int totalCourses() {
+        int total = 0;
+        for (int c : counts) total += c;
+        return total;
+    }
+
+    public List<String> codesIn(int term) {
+        List<String> result = new ArrayList<>(counts[term]);
+        for (int i = 0; i < counts[term]; i++) result.add(catalog.codeAt(courses[term][i]));
+        return result;
+    }
+
+    public List<CourseData> coursesIn(int term) {
+        List<CourseData> result = new ArrayList<>(counts[term]);
+        for (int i = 0; i < counts[term]; i++) result.add(catalog.getCourseAt(courses[term][i]));
+        return result;
+    }
+
+    /**
+     * @return Term number (from 1) → course codes, the shape of CoursePlanner.FourYearPlan.
+     */
+    public Map<Integer, List<String>> toNumberedMap() {
+        Map<Integer, List<String>> result = new HashMap<>();
+        for (int t = 0; t < counts.length; t++) result.put(t + 1, codesIn(t));
+        return result;
+    }
+
+    /**
+     * @return Term label → courses in term order, the shape of FourYearPlanner.generatePlan.
+     */
+    public Map<String, List<CourseData>> toLabelMap() {
+        Map<String, List<CourseData>> result = new LinkedHashMap<>();
+        for (int t = 0; t < counts.length; t++) result.put(calendar.label(t), coursesIn(t));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int t = 0; t < counts.length; t++) {
+            if (t > 0) sb.append(", ");
+            sb.append(calendar.label(t)).append('=').append(codesIn(t));
+        }
+        return sb.toString();
+    }
+}
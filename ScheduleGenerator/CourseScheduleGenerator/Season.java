@@ -0,0 +1,37 @@
+/**
+ * Season of an academic term. Fall and Spring come from the offeredFall /
+ * offeredSpring columns of the catalog; Winter (winter study or a winter
+ * quarter) and Summer come from the optional extra-seasons column.
+ */
+public enum Season {
+    FALL("Fall"),
+    WINTER("Winter"),
+    SPRING("Spring"),
+    SUMMER("Summer");
+
+    private final String label;
+
+    Season(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return The season with the given label (case-insensitive), or null if there is none.
+     */
+    public static Season fromLabel(String label) {
+        if (label == null) return null;
+        for (Season s : values()) {
+            if (s.label.equalsIgnoreCase(label.trim())) return s;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
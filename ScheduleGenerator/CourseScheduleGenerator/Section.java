@@ -0,0 +1,111 @@
+import java.util.*;
+
+/**
+ * One meeting pattern of a course (e.g. section 02 on Tue/Thu 10:30–12:00).
+ * Times are stored as minutes after midnight so they compare correctly
+ * even when the CSV writes "8:30" instead of "08:30".
+ */
+public class Section {
+    private static final String[] DAY_NAMES = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+    public final String courseCode;
+    public final String sectionId;
+    public final String days;        // as written in the CSV, e.g. "Mon/Wed/Fri"
+    public final String startTime;
+    public final String endTime;
+
+    final int dayMask;   // bit d is set if the section meets on day d (0 = Monday)
+    final int start;     // minutes after midnight, inclusive
+    final int end;       // minutes after midnight, exclusive
+
+    /**
+     * @throws IllegalArgumentException if a time is malformed or the section ends before it starts.
+     */
+    public Section(String courseCode, String sectionId, String days, String startTime, String endTime) {
+        this.courseCode = courseCode;
+        this.sectionId = sectionId;
+        this.days = days;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        // A section with blank or TBA times has no meetings and conflicts with nothing
+        if (isUnscheduled(startTime) || isUnscheduled(endTime)) {
+            this.dayMask = 0;
+            this.start = 0;
+            this.end = 0;
+        } else {
+            this.dayMask = parseDays(days);
+            this.start = parseTime(startTime);
+            this.end = parseTime(endTime);
+            if (end <= start) {
+                throw new IllegalArgumentException("invalid time range \"" + startTime.trim() + "-" + endTime.trim()
+                    + "\" (the end must be after the start)");
+            }
+        }
+    }
+
+    static boolean isUnscheduled(String time) {
+        if (time == null) return true;
+        String t = time.trim();
+        return t.isEmpty() || t.equalsIgnoreCase("TBA") || t.equalsIgnoreCase("TBD");
+    }
+
+    /**
+     * @return false for a section without scheduled meetings (TBA times or no known days).
+     */
+    public boolean hasMeetings() {
+        return dayMask != 0;
+    }
+
+    /**
+     * Converts "Mon/Wed/Fri" into a bit mask. Unknown day names are ignored.
+     */
+    static int parseDays(String days) {
+        int mask = 0;
+        if (days == null) return mask;
+        for (String d : days.split("/")) {
+            String day = d.trim();
+            for (int i = 0; i < DAY_NAMES.length; i++) {
+                if (day.regionMatches(true, 0, DAY_NAMES[i], 0, 3)) {
+                    mask |= 1 << i;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Converts "H:MM" or "HH:MM" into minutes after midnight.
+     *
+     * @throws IllegalArgumentException if the text is not such a time.
+     */
+    static int parseTime(String time) {
+        String[] parts = time.trim().split(":");
+        try {
+            if (parts.length == 2) {
+                int hours = Integer.parseInt(parts[0].trim());
+                int minutes = Integer.parseInt(parts[1].trim());
+                if (hours >= 0 && hours < 24 && minutes >= 0 && minutes < 60) return hours * 60 + minutes;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("invalid time \"" + time.trim() + "\" (expected HH:MM or TBA)");
+    }
+
+    /**
+     * @return true if both sections meet on a common day at overlapping times.
+     */
+    public boolean conflictsWith(Section other) {
+        return (dayMask & other.dayMask) != 0 && start < other.end && other.start < end;
+    }
+
+    public boolean meetsOn(int day) {
+        return (dayMask & (1 << day)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return courseCode + " [" + sectionId + "] " + days + " " + startTime + "-" + endTime;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.*;
+
+/**
+ * Picks one section for every course taken in a semester so that no two
+ * sections overlap.
+ *
+ * Courses are offered one at a time with tryAdd. The common case is answered
+ * by looking for a free section of the new course in the WeeklyIntervalIndex.
+ * If there is none, the sections of the courses already accepted are re-chosen
+ * with a small backtracking search (fewest remaining sections first), so a
+ * course is only dropped when no combination of sections works.
+ */
+public class SectionScheduler {
+    // Upper bound on search nodes per tryAdd, keeps pathological inputs fast
+    private static final int MAX_NODES = 20000;
+
+    private final List<CourseData> courses = new ArrayList<>();
+    private final List<Section> chosen = new ArrayList<>();
+    private final WeeklyIntervalIndex index = new WeeklyIntervalIndex();
+
+    private int nodes;
+
+    /**
+     * Tries to add a course to the semester.
+     *
+     * @param cd Course to add.
+     * @return true if a conflict-free combination of sections was found,
+     *         false if the course cannot fit (the current choice is then kept).
+     */
+    public boolean tryAdd(CourseData cd) {
+        if (cd.sections.isEmpty()) return false;
+
+        // Fast path: a free section with the current choices
+        for (Section s : cd.sections) {
+            if (index.fits(s)) {
+                index.add(s);
+                courses.add(cd);
+                chosen.add(s);
+                return true;
+            }
+        }
+
+        // Slow path: re-choose every section
+        List<CourseData> all = new ArrayList<>(courses);
+        all.add(cd);
+        Section[] assignment = new Section[all.size()];
+        WeeklyIntervalIndex trial = new WeeklyIntervalIndex();
+        nodes = 0;
+        if (!solve(all, assignment, new boolean[all.size()], 0, trial)) return false;
+
+        courses.add(cd);
+        chosen.clear();
+        index.clear();
+        for (Section s : assignment) {
+            chosen.add(s);
+            index.add(s);
+        }
+        return true;
+    }
+
+    private boolean solve(List<CourseData> all, Section[] assignment, boolean[] assigned,
+                          int depth, WeeklyIntervalIndex trial) {
+        if (depth == all.size()) return true;
+        if (++nodes > MAX_NODES) return false;
+
+        // Most constrained course first: the one with fewest sections that still fit
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < all.size(); i++) {
+            if (assigned[i]) continue;
+            int count = 0;
+            for (Section s : all.get(i).sections) {
+                if (trial.fits(s)) count++;
+            }
+            if (count == 0) return false;
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+            }
+        }
+
+        assigned[best] = true;
+        for (Section s : all.get(best).sections) {
+            if (!trial.fits(s)) continue;
+            trial.add(s);
+            assignment[best] = s;
+            if (solve(all, assignment, assigned, depth + 1, trial)) return true;
+            trial.remove(s);
+        }
+        assigned[best] = false;
+        assignment[best] = null;
+        return false;
+    }
+
+    /**
+     * @return The chosen sections, in the order the courses were added.
+     */
+    public List<Section> getChosenSections() {
+        return new ArrayList<>(chosen);
+    }
+
+    public int size() {
+        return courses.size();
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.*;
+
+/**
+ * A plan read back from a PlanStore: the student, the catalog version it was
+ * planned against, its calendar and the course codes of every term.
+ */
+public class StoredPlan {
+    public final String studentId;
+    public final int catalogVersion;
+    public final long createdMillis;
+    public final TermCalendar calendar;
+    private final List<List<String>> terms;
+
+    StoredPlan(String studentId, int catalogVersion, long createdMillis,
+               TermCalendar calendar, List<List<String>> terms) {
+        this.studentId = studentId;
+        this.catalogVersion = catalogVersion;
+        this.createdMillis = createdMillis;
+        this.calendar = calendar;
+        this.terms = terms;
+    }
+
+    /**
+     * @return Course codes of the term.
+     */
+    public List<String> codesIn(int term) {
+        return Collections.unmodifiableList(terms.get(term));
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Rebuilds the plan against a catalog. Courses the catalog no longer has are skipped.
+     */
+    public SchedulePlan toSchedulePlan(CourseCatalog catalog) {
+        SchedulePlan plan = new SchedulePlan(catalog, calendar);
+        for (int t = 0; t < terms.size() && t < plan.termCount(); t++) {
+            for (String code : terms.get(t)) {
+                int idx = catalog.indexOf(code);
+                if (idx >= 0) plan.add(t, idx);
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(studentId + " (catalog " + catalogVersion + "): ");
+        for (int t = 0; t < terms.size(); t++) {
+            if (t > 0) sb.append(", ");
+            sb.append(calendar.label(t)).append('=').append(terms.get(t));
+        }
+        return sb.toString();
+    }
+}
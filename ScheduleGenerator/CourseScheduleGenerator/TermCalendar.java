@@ -0,0 +1,137 @@
+import java.util.*;
+
+/**
+ * Term horizon of a plan: a number of years, each made of the same cycle of
+ * seasons (Fall/Spring semesters, Fall/Winter/Spring quarters, a Summer term...).
+ *
+ * Terms are numbered from 0 (first term of the first year). Labels are
+ * "Season year", e.g. "Fall 1", "Winter 1", "Spring 4".
+ */
+public class TermCalendar {
+    /** The default horizon: 4 years of Fall and Spring semesters. */
+    public static final TermCalendar FOUR_YEAR_SEMESTERS = semesters(4);
+
+    private final int years;
+    private final Season[] cycle;       // seasons of one year, in order
+    private final String[] labels;      // label of every term, built once
+
+    public TermCalendar(int years, Season... cycle) {
+        if (years <= 0) throw new IllegalArgumentException("A calendar needs at least one year");
+        if (cycle.length == 0) throw new IllegalArgumentException("A calendar needs at least one season");
+        this.years = years;
+        this.cycle = cycle.clone();
+        this.labels = new String[years * cycle.length];
+        for (int t = 0; t < labels.length; t++) {
+            labels[t] = seasonOf(t).getLabel() + " " + (yearOf(t) + 1);
+        }
+    }
+
+    /** Fall and Spring semesters. */
+    public static TermCalendar semesters(int years) {
+        return new TermCalendar(years, Season.FALL, Season.SPRING);
+    }
+
+    /** Fall, Winter and Spring quarters (or semesters with winter study in between). */
+    public static TermCalendar quarters(int years) {
+        return new TermCalendar(years, Season.FALL, Season.WINTER, Season.SPRING);
+    }
+
+    /** Fall and Spring semesters with a Summer term. */
+    public static TermCalendar semestersWithSummer(int years) {
+        return new TermCalendar(years, Season.FALL, Season.SPRING, Season.SUMMER);
+    }
+
+    /**
+     * @return Total number of terms.
+     */
+    public int size() {
+        return labels.length;
+    }
+
+    public int years() {
+        return years;
+    }
+
+    public int termsPerYear() {
+        return cycle.length;
+    }
+
+    public Season seasonOf(int term) {
+        return cycle[term % cycle.length];
+    }
+
+    /**
+     * @return Year of the term, from 0.
+     */
+    public int yearOf(int term) {
+        return term / cycle.length;
+    }
+
+    /**
+     * @return Seasons of one year, in order.
+     */
+    public List<Season> seasons() {
+        return Collections.unmodifiableList(Arrays.asList(cycle));
+    }
+
+    public boolean hasSeason(Season season) {
+        for (Season s : cycle) {
+            if (s == season) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Label of the term. Terms past the horizon still get a label.
+     */
+    public String label(int term) {
+        if (term >= 0 && term < labels.length) return labels[term];
+        return seasonOf(term).getLabel() + " " + (yearOf(term) + 1);
+    }
+
+    /**
+     * @return Labels of every term, in order.
+     */
+    public List<String> labels() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    /**
+     * @return Index of the term with this label, or -1.
+     */
+    public int indexOf(String label) {
+        for (int t = 0; t < labels.length; t++) {
+            if (labels[t].equals(label)) return t;
+        }
+        return -1;
+    }
+
+    public boolean isOffered(CourseData cd, int term) {
+        return cd.isOfferedIn(seasonOf(term));
+    }
+
+    /**
+     * @return Whether the course is offered in at least one season of the calendar.
+     */
+    public boolean isOfferedAnyTerm(CourseData cd) {
+        for (Season s : cycle) {
+            if (cd.isOfferedIn(s)) return true;
+        }
+        return false;
+    }
+
+    public double rating(CourseData cd, int term) {
+        return cd.ratingIn(seasonOf(term));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(years).append(years == 1 ? " year, " : " years, ");
+        for (int i = 0; i < cycle.length; i++) {
+            if (i > 0) sb.append('/');
+            sb.append(cycle[i].getLabel());
+        }
+        return sb.toString();
+    }
+}
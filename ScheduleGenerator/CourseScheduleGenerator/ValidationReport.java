@@ -0,0 +1,101 @@
+import java.util.*;
+
+/**
+ * Problems found in a catalog by CatalogValidator.
+ */
+public class ValidationReport {
+    // Each cycle is a list of course codes, first course repeated at the end
+    private final List<List<String>> cycles = new ArrayList<>();
+    // Every course of each cyclic strongly connected component
+    private final List<List<String>> cyclicComponents = new ArrayList<>();
+    // "course → missing prerequisite" pairs
+    private final List<String[]> missingPrerequisites = new ArrayList<>();
+    // Courses offered in no term
+    private final List<String> neverOffered = new ArrayList<>();
+    // Courses that are offered but whose prerequisites can never be completed
+    private final List<String> unreachable = new ArrayList<>();
+    // CSV rows that were skipped or only partly used
+    private final List<String> rowProblems = new ArrayList<>();
+
+    void addCycle(List<String> component, List<String> cycle) {
+        cyclicComponents.add(component);
+        cycles.add(cycle);
+    }
+
+    void addMissingPrerequisite(String course, String missing) {
+        missingPrerequisites.add(new String[]{course, missing});
+    }
+
+    void addNeverOffered(String course) {
+        neverOffered.add(course);
+    }
+
+    void addUnreachable(String course) {
+        unreachable.add(course);
+    }
+
+    void addRowProblem(String problem) {
+        rowProblems.add(problem);
+    }
+
+    public List<List<String>> getCycles() {
+        return cycles;
+    }
+
+    public List<List<String>> getCyclicComponents() {
+        return cyclicComponents;
+    }
+
+    public List<String[]> getMissingPrerequisites() {
+        return missingPrerequisites;
+    }
+
+    public List<String> getNeverOffered() {
+        return neverOffered;
+    }
+
+    public List<String> getUnreachable() {
+        return unreachable;
+    }
+
+    public List<String> getRowProblems() {
+        return rowProblems;
+    }
+
+    /**
+     * @return true if no problem was found.
+     */
+    public boolean isValid() {
+        return cycles.isEmpty() && missingPrerequisites.isEmpty()
+            && neverOffered.isEmpty() && unreachable.isEmpty() && rowProblems.isEmpty();
+    }
+
+    /**
+     * @return Every problem as a readable line.
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>(rowProblems);
+        for (List<String> cycle : cycles) {
+            lines.add("Prerequisite cycle: " + String.join(" -> ", cycle));
+        }
+        for (String[] pair : missingPrerequisites) {
+            lines.add("Course " + pair[0] + " requires " + pair[1] + ", which is not in the catalog");
+        }
+        for (String code : neverOffered) {
+            lines.add("Course " + code + " is never offered");
+        }
+        for (String code : unreachable) {
+            lines.add("Course " + code + " can never be taken: its prerequisites cannot be completed");
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return cycles.size() + " cycle(s), "
+            + missingPrerequisites.size() + " missing prerequisite(s), "
+            + neverOffered.size() + " course(s) never offered, "
+            + unreachable.size() + " course(s) that can never be taken, "
+            + rowProblems.size() + " row problem(s)";
+    }
+}
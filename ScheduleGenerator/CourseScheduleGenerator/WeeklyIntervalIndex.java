@@ -0,0 +1,85 @@
+import java.util.Arrays;
+
+/**
+ * Occupied time intervals of one week, indexed per weekday.
+ * Each day keeps its intervals sorted by start time; since the intervals never
+ * overlap, a new interval fits iff the last interval starting before its end
+ * already finished before its start. That is one binary search per meeting day.
+ */
+public class WeeklyIntervalIndex {
+    private static final int DAYS = 7;
+
+    private final int[][] starts = new int[DAYS][4];
+    private final int[][] ends = new int[DAYS][4];
+    private final int[] sizes = new int[DAYS];
+
+    /**
+     * @return true if the section does not overlap anything already in the index.
+     */
+    public boolean fits(Section s) {
+        for (int d = 0; d < DAYS; d++) {
+            if (s.meetsOn(d) && !fits(d, s.start, s.end)) return false;
+        }
+        return true;
+    }
+
+    private boolean fits(int day, int start, int end) {
+        int p = lastStartingBefore(day, end);
+        return p < 0 || ends[day][p] <= start;
+    }
+
+    /**
+     * Adds the section. The caller must have checked fits(s) first.
+     */
+    public void add(Section s) {
+        for (int d = 0; d < DAYS; d++) {
+            if (!s.meetsOn(d)) continue;
+            int n = sizes[d];
+            if (n == starts[d].length) {
+                starts[d] = Arrays.copyOf(starts[d], n * 2);
+                ends[d] = Arrays.copyOf(ends[d], n * 2);
+            }
+            int p = lastStartingBefore(d, s.start + 1) + 1;
+            System.arraycopy(starts[d], p, starts[d], p + 1, n - p);
+            System.arraycopy(ends[d], p, ends[d], p + 1, n - p);
+            starts[d][p] = s.start;
+            ends[d][p] = s.end;
+            sizes[d] = n + 1;
+        }
+    }
+
+    /**
+     * Removes a section previously added with add(s).
+     */
+    public void remove(Section s) {
+        for (int d = 0; d < DAYS; d++) {
+            if (!s.meetsOn(d)) continue;
+            int p = lastStartingBefore(d, s.start + 1);
+            if (p < 0 || starts[d][p] != s.start) continue;
+            int n = sizes[d];
+            System.arraycopy(starts[d], p + 1, starts[d], p, n - p - 1);
+            System.arraycopy(ends[d], p + 1, ends[d], p, n - p - 1);
+            sizes[d] = n - 1;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(sizes, 0);
+    }
+
+    // Index of the last interval of 'day' whose start is < limit, or -1.
+    private int lastStartingBefore(int day, int limit) {
+        int lo = 0, hi = sizes[day] - 1, found = -1;
+        int[] st = starts[day];
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (st[mid] < limit) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}